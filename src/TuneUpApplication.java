@@ -7,15 +7,19 @@ import javafx.scene.control.Alert;
 import javafx.fxml.FXMLLoader;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Paths;
 
 // Imports for services and controller
 import service.PlayerService;
 import service.LyricsService;
+import service.LyricsPrefetcher;
+import service.LyricsFileWatcher;
 import service.QueueService;
 import controller.MainController;
 
 // Imports for initialization
 import util.ApplicationInitializer;
+import util.MemoryPressureMonitor;
 
 /**
  * Main application class for the TuneUp Karaoke Application.
@@ -30,6 +34,9 @@ public class TuneUpApplication extends Application {
     private PlayerService playerService;
     private LyricsService lyricsService;
     private QueueService queueService;
+    private LyricsPrefetcher lyricsPrefetcher; // Loads lyrics of upcoming queue entries in the background
+    private LyricsFileWatcher lyricsFileWatcher; // Invalidates cached lyrics when .lrc files change on disk
+    private MemoryPressureMonitor memoryPressureMonitor; // Shrinks caches when the heap runs low
     private boolean initializationOk = false; // Tracks if backend initialization was successful
 
     /**
@@ -50,6 +57,11 @@ public class TuneUpApplication extends Application {
         this.playerService = new PlayerService();
         this.lyricsService = new LyricsService();
         this.queueService = new QueueService();
+        this.lyricsPrefetcher = new LyricsPrefetcher(queueService, lyricsService.getLyricsCache(), LyricsPrefetcher.DEFAULT_DEPTH);
+        this.lyricsPrefetcher.start();
+        this.memoryPressureMonitor = new MemoryPressureMonitor();
+        this.memoryPressureMonitor.addListener(lyricsService.getLyricsCache()::setBudgetScale);
+        this.memoryPressureMonitor.start();
         System.out.println("Core services instantiated.");
 
         // Perform core application initialization (database, schema, data population)
@@ -58,6 +70,9 @@ public class TuneUpApplication extends Application {
 
         if (this.initializationOk) {
             System.out.println("Core application initialization successful.");
+            // Watch the songs directory only after population, so the initial scan is not reported as changes.
+            this.lyricsFileWatcher = new LyricsFileWatcher(Paths.get(ApplicationInitializer.SONGS_DIRECTORY), lyricsService.getLyricsCache());
+            this.lyricsFileWatcher.start();
         } else {
             // Log critical failure; the start() method will show an error dialog
             // and prevent UI launch if initializationOk is false.
@@ -111,6 +126,7 @@ public class TuneUpApplication extends Application {
                 controller.setPlayerService(this.playerService);
                 controller.setLyricsService(this.lyricsService);
                 controller.setQueueService(this.queueService);
+                controller.setLyricsFileWatcher(this.lyricsFileWatcher);
                 // Initialize sub-controllers and their services through the MainController
                 controller.initializeSubControllersAndServices();
                 System.out.println("MainController initialized and services injected.");
@@ -165,6 +181,15 @@ public class TuneUpApplication extends Application {
         System.out.println("TuneUp Application Shutting Down...");
         try {
             // Dispose of services that require cleanup.
+            if (lyricsPrefetcher != null) {
+                lyricsPrefetcher.dispose(); // Cancels pending lyric loads.
+            }
+            if (lyricsFileWatcher != null) {
+                lyricsFileWatcher.dispose(); // Stops watching the songs directory.
+            }
+            if (memoryPressureMonitor != null) {
+                memoryPressureMonitor.stop(); // Stops the heap occupancy checks.
+            }
             if (playerService != null) {
                 playerService.dispose(); // Assuming PlayerService has a dispose method for MediaPlayer.
                 System.out.println("PlayerService disposed.");
@@ -5,6 +5,7 @@ import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
+import javafx.scene.layout.VBox;
 import javafx.scene.media.MediaPlayer;
 import javafx.stage.Stage;
 
@@ -35,10 +36,7 @@ public class FullscreenViewController implements Initializable, MainController.S
     // --- FXML Injected Fields for Fullscreen View ---
     @FXML private Label fullscreenNextSongLabel;            // Displays the title of the next song in the queue.
     @FXML private Label fullscreenQueueCountLabel;          // Shows count of additional songs in queue.
-    @FXML private Label fullscreenPreviousLyricLabel;       // Displays the preceding lyric line.
-    @FXML private Label fullscreenCurrentLyricLabel;        // Displays the current, active lyric line.
-    @FXML private Label fullscreenNext1LyricLabel;          // Displays the upcoming lyric line.
-    @FXML private Label fullscreenNext2LyricLabel;          // Displays the second upcoming lyric line.
+    @FXML private VBox fullscreenLyricsContainer;           // Holds the lyric labels, created by 'lyricLabels'.
     @FXML private Label fullscreenCurrentTimeLabel;         // Shows current playback time of the song.
     @FXML private Slider fullscreenPlaybackSlider;          // Allows user to seek within the current song.
     @FXML private Label fullscreenTotalDurationLabel;       // Shows total duration of the current song.
@@ -58,6 +56,7 @@ public class FullscreenViewController implements Initializable, MainController.S
     private LyricsService lyricsService;
     private QueueService queueService;
     private MainController mainController;
+    private LyricWindowLabels lyricLabels;                  // Shows the lyric window; null until services are set.
     private Stage primaryStage;
 
     // --- State ---
@@ -130,29 +129,28 @@ public class FullscreenViewController implements Initializable, MainController.S
         }
 
         // Add listeners to service properties that affect this view's display.
-        // These listeners call updateUIDisplay to refresh relevant parts.
-        playerService.statusProperty().addListener((@SuppressWarnings("unused") var _unusedObs, @SuppressWarnings("unused") var _unusedOldStatus, @SuppressWarnings("unused") var _unusedNewStatus) -> Platform.runLater(this::updateUIDisplay));
-        playerService.currentTimeProperty().addListener((@SuppressWarnings("unused") var _unusedObs, @SuppressWarnings("unused") var _unusedOldTime, @SuppressWarnings("unused") var _unusedNewTime) -> Platform.runLater(this::updateUIDisplay));
-        playerService.totalDurationProperty().addListener((@SuppressWarnings("unused") var _unusedObs, @SuppressWarnings("unused") var _unusedOldDuration, @SuppressWarnings("unused") var _unusedNewDuration) -> Platform.runLater(this::updateUIDisplay));
+        // These listeners call updateUIDisplay to refresh relevant parts. Status, time and duration are already
+        // updated on the FX thread (coalesced by PlayerService), so they refresh directly.
+        playerService.statusProperty().addListener((@SuppressWarnings("unused") var _unusedObs, @SuppressWarnings("unused") var _unusedOldStatus, @SuppressWarnings("unused") var _unusedNewStatus) -> updateUIDisplay());
+        playerService.currentTimeProperty().addListener((@SuppressWarnings("unused") var _unusedObs, @SuppressWarnings("unused") var _unusedOldTime, @SuppressWarnings("unused") var _unusedNewTime) -> updateUIDisplay());
+        playerService.totalDurationProperty().addListener((@SuppressWarnings("unused") var _unusedObs, @SuppressWarnings("unused") var _unusedOldDuration, @SuppressWarnings("unused") var _unusedNewDuration) -> updateUIDisplay());
         
         playerService.currentSongProperty().addListener((@SuppressWarnings("unused") var _unusedObs, @SuppressWarnings("unused") var _unusedOldSong, var newSong) -> Platform.runLater(() -> {
-            // When a new song loads, LyricsService should process it (e.g., load lyrics and initial offset).
-            // This controller then ensures MainController's central live offset is updated
-            // with the initial offset from LyricsService for the new song.
-            if (lyricsService != null && mainController != null) { // Ensure services are available
-                if (newSong != null) {
-                    // It's assumed LyricsService has already loaded the lyrics and determined the
-                    // initial offset for 'newSong'. This typically happens because LyricsService
-                    // also listens to playerService.currentSongProperty() or is explicitly told
-                    // to load lyrics when a song is selected/loaded by PlayerService.
-                    mainController.setCurrentSongLiveOffsetMs((int) lyricsService.getInitialLoadedOffsetMs());
-                } else {
-                    mainController.setCurrentSongLiveOffsetMs(0); // Reset offset if no song is loaded
-                }
+            // When a new song loads, NormalViewController asks LyricsService to load its lyrics asynchronously
+            // and sets MainController's central live offset from the file's initial offset once they are loaded;
+            // reading the initial offset here would see the cleared state of the pending load.
+            // Only the reset for "no song" is done here.
+            if (lyricsService != null && mainController != null && newSong == null) {
+                mainController.setCurrentSongLiveOffsetMs(0); // Reset offset if no song is loaded
             }
             updateUIDisplay(); // Perform a general UI refresh for other elements.
         }));
 
+        if (fullscreenLyricsContainer != null) {
+            // One label per window position, sized from the service's window (configurable for big screens).
+            lyricLabels = new LyricWindowLabels(fullscreenLyricsContainer, "fullscreen-current-lyric", "fullscreen-other-lyric", null,
+                                                lyricsService.getLinesBefore(), lyricsService.getLinesAfter());
+        }
         lyricsService.displayLinesProperty().addListener((@SuppressWarnings("unused") var _unusedObs, @SuppressWarnings("unused") var _unusedOldLines, @SuppressWarnings("unused") var _unusedNewLines) -> Platform.runLater(this::updateUIDisplay));
 
         if (fullscreenPlaybackSlider != null) {
@@ -201,11 +199,7 @@ public class FullscreenViewController implements Initializable, MainController.S
         }
 
         // --- Lyrics Display (SRS 1.2 Lyric Display) ---
-        var displayLines = lyricsService.getDisplayLines();
-        if(fullscreenPreviousLyricLabel != null) fullscreenPreviousLyricLabel.setText(mainController.getLyricTextOrEmpty(displayLines, 0));
-        if(fullscreenCurrentLyricLabel != null) fullscreenCurrentLyricLabel.setText(mainController.getLyricTextOrEmpty(displayLines, 1));
-        if(fullscreenNext1LyricLabel != null) fullscreenNext1LyricLabel.setText(mainController.getLyricTextOrEmpty(displayLines, 2));
-        if(fullscreenNext2LyricLabel != null) fullscreenNext2LyricLabel.setText(mainController.getLyricTextOrEmpty(displayLines, 3));
+        if (lyricLabels != null) lyricLabels.show(lyricsService.getDisplayLines()); // No-op unless the window changed
 
         // --- Now Playing Info (SRS 1.2, SRS 2.2) ---
         Song currentSong = playerService.getCurrentSong();
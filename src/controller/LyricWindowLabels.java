@@ -0,0 +1,144 @@
+package controller;
+
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.TextAlignment;
+
+import model.LyricLine;
+import model.LyricWindow;
+
+import service.LyricsService;
+
+import java.util.List;
+
+/**
+ * Shows a lyric display window (see {@code LyricsService#displayLinesProperty()}) as a column of {@link Label}s
+ * that the view creates on demand, one per window position, instead of a fixed set declared in FXML.
+ * <p>
+ * The labels form a ring buffer over the container's children. When the window slides forward by one line
+ * (the usual case during playback, see {@link LyricWindow#isSuccessorOf(LyricWindow)}), the top label is moved
+ * to the bottom and given the text of the line that scrolled in, and only the two labels whose role changes are
+ * restyled. Updating the display therefore costs the same for 4 or 10 visible lines. Any other change (seek,
+ * new song, window resize) refills every label.
+ * <p>
+ * Supports SRS FR3.4 (Display synchronized lyrics). Must be used on the JavaFX Application Thread.
+ */
+final class LyricWindowLabels {
+
+    private final VBox container;
+    private final String currentStyleClass;    // Style class of the active line's label
+    private final String otherStyleClass;      // Style class of the other labels
+    private final Insets currentLineMargin;    // Extra margin around the active line's label, may be null
+
+    private Label[] ring = new Label[0];       // ring[(head + slot) % length] shows window position 'slot'
+    private int head;
+    private int activeSlot;                    // Window position styled as the active line
+    private List<LyricLine> shown;             // The window the labels currently show
+
+    /**
+     * Constructs a helper that owns all children of {@code container}.
+     *
+     * @param container The container receiving the labels; its existing children are replaced.
+     * @param currentStyleClass The style class of the label showing the active line.
+     * @param otherStyleClass The style class of the other labels.
+     * @param currentLineMargin The margin of the label showing the active line, or {@code null} for none.
+     * @param linesBefore The initial number of lines before the active line, which sizes the empty display.
+     * @param linesAfter The initial number of lines after the active line.
+     */
+    LyricWindowLabels(VBox container, String currentStyleClass, String otherStyleClass, Insets currentLineMargin,
+                      int linesBefore, int linesAfter) {
+        this.container = container;
+        this.currentStyleClass = currentStyleClass;
+        this.otherStyleClass = otherStyleClass;
+        this.currentLineMargin = currentLineMargin;
+        rebuildLabels(linesBefore + 1 + linesAfter, linesBefore);
+    }
+
+    /**
+     * Displays the given window, doing as little work as its difference from the previously shown window allows.
+     *
+     * @param window The lines to show, typically a {@link LyricWindow}; {@code null} elements are shown as empty
+     *               labels. An empty list or {@code null} clears all labels but keeps their number.
+     */
+    void show(List<LyricLine> window) {
+        if (window == shown) {
+            return; // Same snapshot object: nothing changed
+        }
+        List<LyricLine> previous = shown;
+        shown = window;
+        if (window == null || window.isEmpty()) {
+            for (Label label : ring) {
+                label.setText("");
+            }
+            return;
+        }
+
+        if (window instanceof LyricWindow next && previous instanceof LyricWindow last
+                && next.isSuccessorOf(last) && ring.length == next.size()) {
+            slideForward(next);
+            return;
+        }
+
+        int newActiveSlot = (window instanceof LyricWindow lyricWindow)
+                ? lyricWindow.getActiveSlot()
+                : Math.min(LyricsService.DEFAULT_LINES_BEFORE, window.size() - 1);
+        if (ring.length != window.size() || newActiveSlot != activeSlot) {
+            rebuildLabels(window.size(), newActiveSlot);
+        }
+        for (int slot = 0; slot < ring.length; slot++) {
+            labelAt(slot).setText(textOf(window, slot));
+        }
+    }
+
+    /** Moves the top label to the bottom for the line that scrolled in, and passes the active style down one label. */
+    private void slideForward(LyricWindow window) {
+        Label leaving = ring[head]; // Showed position 0, which scrolls out at the top
+        head = (head + 1) % ring.length;
+        container.getChildren().remove(leaving);
+        container.getChildren().add(leaving);
+        leaving.setText(textOf(window, ring.length - 1));
+
+        // The line that was active now sits one position higher (or, in a window starting at it, was the leaving label).
+        Label previouslyActive = (activeSlot > 0) ? labelAt(activeSlot - 1) : leaving;
+        setRole(previouslyActive, false);
+        setRole(labelAt(activeSlot), true);
+    }
+
+    /** Replaces the container's children with {@code size} new labels. */
+    private void rebuildLabels(int size, int newActiveSlot) {
+        ring = new Label[size];
+        head = 0;
+        activeSlot = newActiveSlot;
+        for (int slot = 0; slot < size; slot++) {
+            Label label = new Label();
+            label.setWrapText(true);
+            label.setTextAlignment(TextAlignment.CENTER);
+            setRole(label, slot == activeSlot);
+            ring[slot] = label;
+        }
+        container.getChildren().setAll(ring);
+    }
+
+    private Label labelAt(int slot) {
+        return ring[(head + slot) % ring.length];
+    }
+
+    private void setRole(Label label, boolean current) {
+        label.getStyleClass().removeAll(currentStyleClass, otherStyleClass);
+        label.getStyleClass().add(current ? currentStyleClass : otherStyleClass);
+        VBox.setMargin(label, current ? currentLineMargin : null);
+    }
+
+    /** @return The text at {@code slot}, read without creating a line object when the window allows it. */
+    private static String textOf(List<LyricLine> window, int slot) {
+        String text;
+        if (window instanceof LyricWindow lyricWindow) {
+            text = lyricWindow.getTextAt(slot);
+        } else {
+            LyricLine line = window.get(slot);
+            text = (line != null) ? line.getText() : null;
+        }
+        return (text != null) ? text : "";
+    }
+}
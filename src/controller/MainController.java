@@ -13,10 +13,10 @@ import javafx.scene.media.MediaPlayer;      // For MediaPlayer.Status
 import javafx.stage.Stage;
 
 // --- Model Imports ---
-import model.LyricLine;                     // For getLyricTextOrEmpty utility
 import model.Song;                          // For loadAndPlaySong utility
 
 // --- Service Imports ---
+import service.LyricsFileWatcher;
 import service.LyricsService;
 import service.PlayerService;
 import service.QueueService;
@@ -25,7 +25,8 @@ import service.QueueService;
 import util.LrcWriter;                      // For saving offset
 import java.io.IOException;                 // For LrcWriter exception
 import java.net.URL;
-import java.util.List;                      // For getLyricTextOrEmpty utility
+import java.nio.file.Path;                  // For lyrics file change notifications
+import java.nio.file.Paths;
 import java.util.ResourceBundle;
 import java.util.concurrent.TimeUnit;
 
@@ -53,6 +54,7 @@ public class MainController implements Initializable {
     private PlayerService playerService;
     private LyricsService lyricsService;
     private QueueService queueService;
+    private LyricsFileWatcher lyricsFileWatcher; // Optional; reports .lrc files changed on disk
     private Stage primaryStage;
 
     // Shared state for lyric offset, managed by this central controller. SRS 1.2: manual timing adjustment.
@@ -138,6 +140,12 @@ public class MainController implements Initializable {
      * @param queueService The queue service.
      */
     public void setQueueService(QueueService queueService) { this.queueService = queueService; }
+    /**
+     * Sets the {@link LyricsFileWatcher} instance, whose notifications refresh the lyrics and library
+     * when .lrc files change on disk. Optional; must be set before {@link #initializeSubControllersAndServices()}.
+     * @param lyricsFileWatcher The lyrics file watcher, or {@code null} if files are not watched.
+     */
+    public void setLyricsFileWatcher(LyricsFileWatcher lyricsFileWatcher) { this.lyricsFileWatcher = lyricsFileWatcher; }
 
     /**
      * Initializes sub-controllers (NormalView and FullscreenView) by injecting necessary services
@@ -195,6 +203,17 @@ public class MainController implements Initializable {
                     playerService.loadSong(null, false); // Load null to clear player, stopping playback.
                 }
             });
+            // Lets the player pre-roll the queue head shortly before the current song ends.
+            playerService.setNextSongSupplier(() -> queueService.peekNextSongs(1).stream().findFirst().orElse(null));
+            // After a seek the lyric cursor cannot continue from its last line; make it search again,
+            // and re-time the wakeup for the next line change from the new position.
+            playerService.setOnSeekHandler((@SuppressWarnings("unused") var _millis) -> {
+                lyricsService.resetLyricCursor();
+                syncLyricsDisplay();
+            });
+        }
+        if (lyricsFileWatcher != null) {
+            lyricsFileWatcher.setOnLyricsFileChangedHandler(this::handleLyricsFileChanged);
         }
 
         // Apply initial theme based on the default state (isDarkMode = false -> light theme)
@@ -212,6 +231,24 @@ public class MainController implements Initializable {
         });
     }
 
+    /**
+     * Refreshes what was read from an LRC file that changed on disk (see {@link LyricsFileWatcher}):
+     * the lyrics of the current song, if they come from that file, and the song library, whose metadata
+     * may have changed. The live lyric offset of the current song is kept. Called on the JavaFX Application Thread.
+     * @param lrcPath The absolute path of the changed .lrc file.
+     */
+    private void handleLyricsFileChanged(Path lrcPath) {
+        Song currentSong = lyricsService.getCurrentSong();
+        String currentLyricsPath = (currentSong != null) ? currentSong.getLyricsFilePath() : null;
+        if (currentLyricsPath != null && Paths.get(currentLyricsPath).toAbsolutePath().equals(lrcPath)) {
+            System.out.println("MainController: Lyrics file of the current song changed; reloading it.");
+            lyricsService.reloadCurrentLyricsAsync().thenAccept((@SuppressWarnings("unused") var _reloaded) -> syncLyricsDisplay());
+        }
+        if (normalViewController != null) {
+            normalViewController.refreshSongLibrary();
+        }
+    }
+
     // --- Public methods for Sub-Controllers to call ---
 
     /**
@@ -485,6 +522,19 @@ public class MainController implements Initializable {
         }
     }
 
+    /**
+     * Updates the lyrics display for the current playback position and offset, and re-times the normal view's
+     * wakeup for the next line change (see {@link NormalViewController#syncLyricsToPlaybackClock()}).
+     * SRS: FR3.4 (Display synchronized lyrics).
+     */
+    private void syncLyricsDisplay() {
+        if (normalViewController != null) {
+            normalViewController.syncLyricsToPlaybackClock();
+        } else {
+            lyricsService.updateCurrentDisplayLines(playerService.getPlaybackClock().currentTimeMillis(), currentSongLiveOffsetMs);
+        }
+    }
+
     /**
      * Adjusts the live lyric display offset for the currently playing song by a specified amount.
      * The new offset is applied to the {@link LyricsService} for immediate visual feedback
@@ -509,14 +559,20 @@ public class MainController implements Initializable {
             fullscreenViewController.updateLyricOffsetDisplay(this.currentSongLiveOffsetMs);
         }
 
-        // Apply the new offset to the lyrics display
-        lyricsService.updateCurrentDisplayLines(playerService.getCurrentTimeMillis(), this.currentSongLiveOffsetMs);
+        // Apply the new offset to the lyrics display (which also moves the next line change)
+        syncLyricsDisplay();
 
         // Persist the new total offset to the .lrc file
         String lyricsFilePath = currentSongForOffset.getLyricsFilePath();
         if (lyricsFilePath != null && !lyricsFilePath.isBlank()) {
             try {
-                LrcWriter.saveOffsetToLrcFile(lyricsFilePath, this.currentSongLiveOffsetMs);
+                // Keep the file in the encoding its lyrics were loaded with (null lets the writer detect it)
+                LrcWriter.saveOffsetToLrcFile(lyricsFilePath, this.currentSongLiveOffsetMs,
+                                              lyricsService.getCurrentLyricsCharset());
+                if (lyricsFileWatcher != null) {
+                    // Our own save: the watcher must not reload the lyrics or refresh the library for it
+                    lyricsFileWatcher.expectOwnWrite(Paths.get(lyricsFilePath), this.currentSongLiveOffsetMs);
+                }
                 System.out.println("Lyric offset (" + this.currentSongLiveOffsetMs + "ms) saved for: " + currentSongForOffset.getTitle());
             } catch (IOException e) {
                 System.err.println("Failed to save lyric offset to LRC file: " + lyricsFilePath + " - " + e.getMessage());
@@ -592,20 +648,6 @@ public class MainController implements Initializable {
         return formatTime((long) millis);
     }
 
-    /**
-     * Safely retrieves lyric text from a list of {@link LyricLine} objects.
-     * @param lines The list of lyric lines.
-     * @param index The index of the desired line.
-     * @return The lyric text if the index is valid, otherwise an empty string.
-     */
-    public String getLyricTextOrEmpty(List<LyricLine> lines, int index) {
-        if (lines != null && index >= 0 && index < lines.size()) {
-            LyricLine line = lines.get(index);
-            return (line != null && line.getText() != null) ? line.getText() : "";
-        }
-        return "";
-    }
-    
     /**
      * Displays a standardized error dialog to the user.
      * This method should be called for errors that the user needs to be aware of.
@@ -1,6 +1,7 @@
 package controller;
 
 // --- JavaFX Imports ---
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
@@ -8,17 +9,20 @@ import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import javafx.scene.media.MediaPlayer;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 // --- Model Imports ---
 import model.Song;
 
 // --- Service Imports ---
 import service.LyricsService;
+import service.PlaybackClock;
 import service.PlayerService;
 import service.QueueService;
 
@@ -51,12 +55,7 @@ public class NormalViewController implements Initializable, MainController.SubCo
     @FXML private TitledPane queueTitledPane; // Collapsible pane displaying the song queue.
     @FXML private ListView<String> queueListView; // Displays the list of songs in the queue (SRS 1.2).
 
-    // lyricsContainer might be used for styling or dynamic layout changes if needed.
-    @FXML private VBox lyricsContainer; // Container for lyric labels.
-    @FXML private Label previousLyricLabel; // Displays the preceding lyric line (SRS 1.2).
-    @FXML private Label currentLyricLabel; // Displays the current, active lyric line (SRS 1.2).
-    @FXML private Label next1LyricLabel; // Displays the upcoming lyric line (SRS 1.2).
-    @FXML private Label next2LyricLabel; // Displays the second upcoming lyric line (SRS 1.2).
+    @FXML private VBox lyricsContainer; // Container for lyric labels, which are created by 'lyricLabels' (SRS 1.2).
 
     @FXML private Label nowPlayingTitleLabel; // Displays title of the currently playing song (SRS 1.2, 2.2).
     @FXML private Label nowPlayingArtistLabel; // Displays artist of the currently playing song (SRS 1.2, 2.2).
@@ -84,7 +83,12 @@ public class NormalViewController implements Initializable, MainController.SubCo
     // --- State ---
     private Song currentlySelectedSong = null; // Tracks the song selected in the songTableView.
     private boolean isUserSeeking = false; // Tracks if user is dragging the playbackSlider.
+    private LyricWindowLabels lyricLabels; // Shows the lyric window in 'lyricsContainer'; null until services are set.
     // currentSongLiveOffsetMs is managed by MainController; this controller displays it.
+    // Fires once at the next lyric line change while playing, so lines switch on time rather than on the next
+    // coarse time update; re-armed by syncLyricsToPlaybackClock().
+    private final PauseTransition lyricWakeup = new PauseTransition();
+    private long lyricWakeupAtMillis = Long.MAX_VALUE; // Playback time the wakeup is armed for, MAX_VALUE if idle
 
     // --- Constants ---
     private static final String ALL_GENRES = "All Genres"; // Constant for the "All Genres" filter option.
@@ -122,6 +126,11 @@ public class NormalViewController implements Initializable, MainController.SubCo
         if (stopButton != null) stopButton.setText("Stop All");
         if (lyricOffsetLabel != null) lyricOffsetLabel.setText("0 ms");   // Default offset display.
         if (addToQueueButton != null) addToQueueButton.setDisable(true);        // Disable until a song is selected.
+        // At the next line change: show it, then arm for the one after (the wakeup may fire slightly early).
+        lyricWakeup.setOnFinished((@SuppressWarnings("unused") var _event) -> {
+            lyricWakeupAtMillis = Long.MAX_VALUE;
+            syncLyricsToPlaybackClock();
+        });
     }
 
     // --- Service and Controller Injection Methods ---
@@ -207,7 +216,7 @@ public class NormalViewController implements Initializable, MainController.SubCo
         updateLyricOffsetDisplay(mainController.getCurrentSongLiveOffsetMs());
 
         // Refresh lyrics based on current playback time and the centrally managed offset.
-        lyricsService.updateCurrentDisplayLines(playerService.getCurrentTimeMillis(), mainController.getCurrentSongLiveOffsetMs());
+        syncLyricsToPlaybackClock();
 
         // Update playback slider position and time labels.
         Song currentSong = playerService.getCurrentSong();
@@ -298,45 +307,51 @@ public class NormalViewController implements Initializable, MainController.SubCo
     private void setupPlayerServiceListeners() {
         if (playerService == null) return;
 
+        // Status, time and duration are already updated on the FX thread (coalesced by PlayerService),
+        // so their listeners update the UI directly.
         // Listener for total duration changes.
-        playerService.totalDurationProperty().addListener((@SuppressWarnings("unused") var _obs, @SuppressWarnings("unused") var _oldDuration, var newDuration) -> Platform.runLater(() -> {
+        playerService.totalDurationProperty().addListener((@SuppressWarnings("unused") var _obs, @SuppressWarnings("unused") var _oldDuration, var newDuration) -> {
             double totalMillis = newDuration.doubleValue();
             if (playbackSlider != null) playbackSlider.setMax(totalMillis > 0 ? totalMillis : 0.0);
             if (totalDurationLabel != null && mainController != null) {
                 totalDurationLabel.setText(mainController.formatTime(newDuration.longValue()));
             }
-        }));
+        });
 
         // Listener for current time changes.
-        playerService.currentTimeProperty().addListener((@SuppressWarnings("unused") var _obs, @SuppressWarnings("unused") var _oldTime, var newTime) -> Platform.runLater(() -> {
+        playerService.currentTimeProperty().addListener((@SuppressWarnings("unused") var _obs, @SuppressWarnings("unused") var _oldTime, var newTime) -> {
             long newTimeMillis = newTime.longValue();
             if (playbackSlider != null && !isUserSeeking) playbackSlider.setValue(newTimeMillis);
             if (currentTimeLabel != null && mainController != null) currentTimeLabel.setText(mainController.formatTime(newTimeMillis));
-            // Update lyrics based on new time and central offset.
-            if (lyricsService != null && mainController != null) {
-                lyricsService.updateCurrentDisplayLines(newTimeMillis, mainController.getCurrentSongLiveOffsetMs());
-            }
-        }));
+            // Update lyrics based on the interpolated playback time and central offset.
+            syncLyricsToPlaybackClock();
+        });
 
         // Listener for playback status changes (Play, Pause, Stop, etc.).
-        playerService.statusProperty().addListener((@SuppressWarnings("unused") var _obs, var oldStatus, var newStatus) -> Platform.runLater(() -> {
+        playerService.statusProperty().addListener((@SuppressWarnings("unused") var _obs, var oldStatus, var newStatus) -> {
             updateControlsBasedOnStatus(newStatus);
+            // Arms the wakeup for the next line change when playback starts; cancels it when playback stops,
+            // showing the line at the position where playback stopped.
+            syncLyricsToPlaybackClock();
             // SRS 1.2: Auto-play next from queue if a song finishes (transitions from PLAYING to STOPPED/READY).
             if (oldStatus == MediaPlayer.Status.PLAYING && 
                 (newStatus == MediaPlayer.Status.STOPPED || newStatus == MediaPlayer.Status.READY)) {
             }
-        }));
+        });
 
         // Listener for current song changes.
         playerService.currentSongProperty().addListener((@SuppressWarnings("unused") var _obs, @SuppressWarnings("unused") var _oldSong, var newSong) -> Platform.runLater(() -> {
             updateNowPlayingDisplay(newSong);
             if (newSong != null) {
                 if (lyricsService != null && mainController != null) {
-                    lyricsService.loadLyricsForSong(newSong); // Loads lyrics and initial offset.
-                    mainController.setCurrentSongLiveOffsetMs((int) lyricsService.getInitialLoadedOffsetMs());
-                    updateLyricOffsetDisplay(mainController.getCurrentSongLiveOffsetMs()); // Update local label.
-                    // Immediately update lyrics display with the new song's initial offset.
-                    lyricsService.updateCurrentDisplayLines(playerService.getCurrentTimeMillis(), mainController.getCurrentSongLiveOffsetMs());
+                    // Loads lyrics and initial offset off the FX thread; the callback runs on the FX thread once they
+                    // are stored, and is skipped if another song was selected in the meantime.
+                    lyricsService.loadLyricsForSongAsync(newSong).thenAccept((@SuppressWarnings("unused") var _loaded) -> {
+                        mainController.setCurrentSongLiveOffsetMs((int) lyricsService.getInitialLoadedOffsetMs());
+                        updateLyricOffsetDisplay(mainController.getCurrentSongLiveOffsetMs()); // Update local label.
+                        // Immediately update lyrics display with the new song's initial offset.
+                        syncLyricsToPlaybackClock();
+                    });
                 }
             } else {
                 resetUIForNoActiveSong(); // Clear UI elements if no song is active.
@@ -352,16 +367,50 @@ public class NormalViewController implements Initializable, MainController.SubCo
     private void setupLyricsServiceListeners() {
         if (lyricsService == null) return;
 
+        if (lyricsContainer != null) {
+            // One label per window position, sized from the service's window (configurable for big screens).
+            lyricLabels = new LyricWindowLabels(lyricsContainer, "current-lyric", "other-lyric", new Insets(5.0, 0.0, 5.0, 0.0),
+                                                lyricsService.getLinesBefore(), lyricsService.getLinesAfter());
+            lyricLabels.show(lyricsService.getDisplayLines());
+        }
         lyricsService.displayLinesProperty().addListener((@SuppressWarnings("unused") var _obs, @SuppressWarnings("unused") var _oldLines, var newLines) -> Platform.runLater(() -> {
-            if(previousLyricLabel != null && mainController != null) previousLyricLabel.setText(mainController.getLyricTextOrEmpty(newLines, 0));
-            if(currentLyricLabel != null && mainController != null) currentLyricLabel.setText(mainController.getLyricTextOrEmpty(newLines, 1));
-            if(next1LyricLabel != null && mainController != null) next1LyricLabel.setText(mainController.getLyricTextOrEmpty(newLines, 2));
-            if(next2LyricLabel != null && mainController != null) next2LyricLabel.setText(mainController.getLyricTextOrEmpty(newLines, 3));
+            if (lyricLabels != null) lyricLabels.show(newLines);
         }));
     }
     
     // --- UI Update Methods ---
 
+    /**
+     * Updates the lyrics display for the interpolated playback position (see {@link PlayerService#getPlaybackClock()})
+     * and the central offset, then arms a single wakeup for the next line change (see
+     * {@link LyricsService#nextChangeAtMillis(long, long)}) while playing. Called on time updates and status changes,
+     * and by {@link MainController} after a seek, an offset change or a lyrics reload, which move the next change.
+     * Cheap when the active line and the next change have not moved.
+     * SRS: FR3.4 (Display synchronized lyrics).
+     */
+    public void syncLyricsToPlaybackClock() {
+        if (lyricsService == null || playerService == null || mainController == null) {
+            return;
+        }
+        PlaybackClock clock = playerService.getPlaybackClock();
+        long nowMillis = clock.currentTimeMillis();
+        long offsetMillis = mainController.getCurrentSongLiveOffsetMs();
+        lyricsService.updateCurrentDisplayLines(nowMillis, offsetMillis);
+
+        long nextChangeMillis = clock.isRunning() ? lyricsService.nextChangeAtMillis(nowMillis, offsetMillis) : Long.MAX_VALUE;
+        if (nextChangeMillis == lyricWakeupAtMillis) {
+            return; // Already armed for this change
+        }
+        lyricWakeup.stop();
+        lyricWakeupAtMillis = nextChangeMillis;
+        if (nextChangeMillis != Long.MAX_VALUE) {
+            // Media time runs 'rate' times faster than wall time; never arm for less than a millisecond.
+            double delayMillis = Math.max(1.0, (nextChangeMillis - nowMillis) / clock.getRate());
+            lyricWakeup.setDuration(Duration.millis(delayMillis));
+            lyricWakeup.playFromStart();
+        }
+    }
+
     /** Resets UI elements to a default state when no song is active/loaded. */
     private void resetUIForNoActiveSong() {
         if (playbackSlider != null) { playbackSlider.setValue(0); playbackSlider.setMax(0); }
@@ -394,6 +443,21 @@ public class NormalViewController implements Initializable, MainController.SubCo
         genreFilterComboBox.setValue(ALL_GENRES); // Default to showing all genres.
     }
 
+    /**
+     * Reloads the song library from the database, keeping the current search text and genre filter,
+     * e.g. after song metadata changed on disk. Also refreshes the genre choices.
+     */
+    public void refreshSongLibrary() {
+        if (genreFilterComboBox != null) {
+            String selectedGenre = genreFilterComboBox.getValue();
+            populateGenreFilter();
+            if (selectedGenre != null && genreFilterComboBox.getItems().contains(selectedGenre)) {
+                genreFilterComboBox.setValue(selectedGenre);
+            }
+        }
+        updateSongTableView();
+    }
+
     /** Updates the song TableView based on current search text and genre filter. */
     private void updateSongTableView() {
         if(songTableView == null || searchTextField == null || genreFilterComboBox == null) return;
@@ -31,7 +31,7 @@ import java.util.TreeSet;  // Import TreeSet for sorted order
 public class SongDAO {
 
     // Static constant for the base SELECT columns to avoid repetition
-    private static final String SELECT_COLUMNS = "SELECT id, title, artist, genre, duration, offset, audio_file_path, lyrics_file_path FROM songs";
+    private static final String SELECT_COLUMNS = "SELECT id, title, artist, genre, duration, offset, audio_file_path, lyrics_file_path, lyrics_charset FROM songs";
 
     // Private constructor to prevent instantiation of this utility class with static methods.
     private SongDAO() {}
@@ -175,6 +175,89 @@ public class SongDAO {
         return songs;
     }
 
+    /**
+     * Updates the metadata of the song whose lyrics are stored in the given LRC file, after the file was changed
+     * on disk (e.g., by an external sync tool). The audio file path, which identifies the song, is left unchanged.
+     * This keeps FR2.1 (Load song metadata from database) consistent with the files without a restart.
+     *
+     * @param lyricsFilePath The absolute path of the .lrc file, as stored in the {@code lyrics_file_path} column.
+     * @param title          The new title; must not be {@code null}.
+     * @param artist         The new artist; must not be {@code null}.
+     * @param genre          The new genre, or {@code null} if none.
+     * @param duration       The new duration in milliseconds, positive.
+     * @param offset         The new {@code [offset:]} value in milliseconds, or {@code null} if none.
+     * @param lyricsCharset  The name of the encoding the file was decoded with, or {@code null} if unknown.
+     * @return The number of songs updated (0 if no song uses this lyrics file), or -1 if an SQL error occurs.
+     */
+    public static int updateLyricsMetadata(String lyricsFilePath, String title, String artist, String genre,
+                                           int duration, Long offset, String lyricsCharset) {
+        String sql = "UPDATE songs SET title = ?, artist = ?, genre = ?, duration = ?, offset = ?, lyrics_charset = ? "
+                     + "WHERE lyrics_file_path = ?";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, title);
+            pstmt.setString(2, artist);
+            pstmt.setString(3, genre);
+            pstmt.setInt(4, duration);
+            pstmt.setObject(5, offset);
+            pstmt.setString(6, lyricsCharset);
+            pstmt.setString(7, lyricsFilePath);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error updating song metadata for lyrics file " + lyricsFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Updates the stored {@code [offset:]} value of the song whose lyrics are stored in the given LRC file, after
+     * the application saved a new offset to that file. The other columns are left unchanged.
+     *
+     * @param lyricsFilePath The absolute path of the .lrc file, as stored in the {@code lyrics_file_path} column.
+     * @param offset         The saved offset in milliseconds.
+     * @return The number of songs updated (0 if no song uses this lyrics file), or -1 if an SQL error occurs.
+     */
+    public static int updateLyricsOffset(String lyricsFilePath, long offset) {
+        String sql = "UPDATE songs SET offset = ? WHERE lyrics_file_path = ?";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, offset);
+            pstmt.setString(2, lyricsFilePath);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error updating song offset for lyrics file " + lyricsFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Stores the encoding detected when the given LRC file was fully parsed, for a song whose row had none (the
+     * population's header scan cannot tell the encoding of a file whose metadata is plain ASCII).
+     * The other columns are left unchanged.
+     *
+     * @param lyricsFilePath The absolute path of the .lrc file, as stored in the {@code lyrics_file_path} column.
+     * @param lyricsCharset  The name of the encoding the file was decoded with.
+     * @return The number of songs updated (0 if no song uses this lyrics file), or -1 if an SQL error occurs.
+     */
+    public static int updateLyricsCharset(String lyricsFilePath, String lyricsCharset) {
+        String sql = "UPDATE songs SET lyrics_charset = ? WHERE lyrics_file_path = ?";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, lyricsCharset);
+            pstmt.setString(2, lyricsFilePath);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error updating lyrics charset for lyrics file " + lyricsFilePath + ": " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
     /**
      * Helper method to map a single row from a {@link ResultSet} to a {@link Song} object.
      * This utility encapsulates the logic of extracting column values and constructing a Song,
@@ -200,7 +283,8 @@ public class SongDAO {
 
         String audioPath = rs.getString("audio_file_path");
         String lyricsPath = rs.getString("lyrics_file_path");
+        String lyricsCharset = rs.getString("lyrics_charset");
 
-        return new Song(id, title, artist, genre, duration, offset, audioPath, lyricsPath);
+        return new Song(id, title, artist, genre, duration, offset, audioPath, lyricsPath, lyricsCharset);
     }
 }
\ No newline at end of file
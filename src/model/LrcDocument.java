@@ -0,0 +1,225 @@
+package model;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the complete parsed contents of a single LRC (.lrc) file: its metadata tags,
+ * its global {@code [offset:...]} value, and its timed lyric lines.
+ * <p>
+ * An {@code LrcDocument} is produced by a single pass over the file (see {@code util.LrcParser#parseDocument(String)}),
+ * so the same parse can serve both library population (which needs the metadata) and playback
+ * (which needs the lines and the offset) without reading the file twice.
+ * <p>
+ * Supports SRS requirements:
+ * <ul>
+ *   <li>FR3.1: Parse LRC files for lyrics and metadata.</li>
+ *   <li>FR3.2: Parse timestamps and text content of lyric lines.</li>
+ * </ul>
+ * The lines and metadata of an instance are immutable. It also carries the {@link ParseDiagnostics}
+ * of the parse that produced it, which should be treated as read-only once the document is built.
+ */
+public class LrcDocument {
+
+    private final String title;             // From [ti:...], may be null
+    private final String artist;            // From [ar:...], may be null
+    private final String album;             // From [al:...], may be null
+    private final String genre;             // From [genre:...], may be null
+    private final Integer durationMillis;   // From [length:...], null if absent or invalid
+    private final Long offsetTagMillis;     // From [offset:...], null if absent or invalid
+    private final List<LyricLine> lines;    // Timed lyric lines, sorted by timestamp
+    private final ParseDiagnostics diagnostics; // Problems found while parsing, never null
+    private final Charset charset;          // Encoding the file was decoded with, null if unknown
+    private final WordTimeline wordTimeline; // Word-level timing of the lines, never null
+    private final String textPoolSummary;   // Deduplication achieved for the lyric texts, null if unknown
+
+    /**
+     * Constructs an {@code LrcDocument}.
+     *
+     * @param title           The value of the {@code [ti:]} tag, or {@code null} if absent.
+     * @param artist          The value of the {@code [ar:]} tag, or {@code null} if absent.
+     * @param album           The value of the {@code [al:]} tag, or {@code null} if absent.
+     * @param genre           The value of the {@code [genre:]} tag, or {@code null} if absent.
+     * @param durationMillis  The parsed {@code [length:]} value in milliseconds, or {@code null} if absent or invalid.
+     * @param offsetTagMillis The parsed {@code [offset:]} value in milliseconds, or {@code null} if absent or invalid.
+     * @param lines           The timed lyric lines, expected to be sorted by timestamp.
+     *                        If {@code null}, an empty list is stored.
+     */
+    public LrcDocument(String title, String artist, String album, String genre,
+                       Integer durationMillis, Long offsetTagMillis, List<LyricLine> lines) {
+        this(title, artist, album, genre, durationMillis, offsetTagMillis, lines, null, null, null);
+    }
+
+    /**
+     * Constructs an {@code LrcDocument} that carries the diagnostics and detected encoding of the parse that produced it.
+     *
+     * @param title           The value of the {@code [ti:]} tag, or {@code null} if absent.
+     * @param artist          The value of the {@code [ar:]} tag, or {@code null} if absent.
+     * @param album           The value of the {@code [al:]} tag, or {@code null} if absent.
+     * @param genre           The value of the {@code [genre:]} tag, or {@code null} if absent.
+     * @param durationMillis  The parsed {@code [length:]} value in milliseconds, or {@code null} if absent or invalid.
+     * @param offsetTagMillis The parsed {@code [offset:]} value in milliseconds, or {@code null} if absent or invalid.
+     * @param lines           The timed lyric lines, expected to be sorted by timestamp.
+     *                        If {@code null}, an empty list is stored.
+     * @param diagnostics     The problems found while parsing. If {@code null}, an empty collector is stored.
+     * @param charset         The encoding the file was decoded with, or {@code null} if unknown.
+     */
+    public LrcDocument(String title, String artist, String album, String genre,
+                       Integer durationMillis, Long offsetTagMillis, List<LyricLine> lines,
+                       ParseDiagnostics diagnostics, Charset charset) {
+        this(title, artist, album, genre, durationMillis, offsetTagMillis, lines, diagnostics, charset, null);
+    }
+
+    /**
+     * Constructs an {@code LrcDocument} that also carries the word-level timing of its lines (enhanced LRC).
+     *
+     * @param title           The value of the {@code [ti:]} tag, or {@code null} if absent.
+     * @param artist          The value of the {@code [ar:]} tag, or {@code null} if absent.
+     * @param album           The value of the {@code [al:]} tag, or {@code null} if absent.
+     * @param genre           The value of the {@code [genre:]} tag, or {@code null} if absent.
+     * @param durationMillis  The parsed {@code [length:]} value in milliseconds, or {@code null} if absent or invalid.
+     * @param offsetTagMillis The parsed {@code [offset:]} value in milliseconds, or {@code null} if absent or invalid.
+     * @param lines           The timed lyric lines, expected to be sorted by timestamp.
+     *                        If {@code null}, an empty list is stored.
+     * @param diagnostics     The problems found while parsing. If {@code null}, an empty collector is stored.
+     * @param charset         The encoding the file was decoded with, or {@code null} if unknown.
+     * @param wordTimeline    The word timing, indexed like {@code lines}. If {@code null} or empty,
+     *                        {@link WordTimeline#EMPTY} is stored.
+     * @throws IllegalArgumentException If a non-empty {@code wordTimeline} does not cover exactly the given lines.
+     */
+    public LrcDocument(String title, String artist, String album, String genre,
+                       Integer durationMillis, Long offsetTagMillis, List<LyricLine> lines,
+                       ParseDiagnostics diagnostics, Charset charset, WordTimeline wordTimeline) {
+        this(title, artist, album, genre, durationMillis, offsetTagMillis, lines, diagnostics, charset, wordTimeline, null);
+    }
+
+    /**
+     * Constructs an {@code LrcDocument} that also reports how much its lyric texts were deduplicated while loading.
+     *
+     * @param title           The value of the {@code [ti:]} tag, or {@code null} if absent.
+     * @param artist          The value of the {@code [ar:]} tag, or {@code null} if absent.
+     * @param album           The value of the {@code [al:]} tag, or {@code null} if absent.
+     * @param genre           The value of the {@code [genre:]} tag, or {@code null} if absent.
+     * @param durationMillis  The parsed {@code [length:]} value in milliseconds, or {@code null} if absent or invalid.
+     * @param offsetTagMillis The parsed {@code [offset:]} value in milliseconds, or {@code null} if absent or invalid.
+     * @param lines           The timed lyric lines, expected to be sorted by timestamp.
+     *                        If {@code null}, an empty list is stored.
+     * @param diagnostics     The problems found while parsing. If {@code null}, an empty collector is stored.
+     * @param charset         The encoding the file was decoded with, or {@code null} if unknown.
+     * @param wordTimeline    The word timing, indexed like {@code lines}. If {@code null} or empty,
+     *                        {@link WordTimeline#EMPTY} is stored.
+     * @param textPoolSummary The summary of the {@code util.LyricTextPool} that shared the texts of {@code lines},
+     *                        or {@code null} if unknown.
+     * @throws IllegalArgumentException If a non-empty {@code wordTimeline} does not cover exactly the given lines.
+     */
+    public LrcDocument(String title, String artist, String album, String genre,
+                       Integer durationMillis, Long offsetTagMillis, List<LyricLine> lines,
+                       ParseDiagnostics diagnostics, Charset charset, WordTimeline wordTimeline,
+                       String textPoolSummary) {
+        this.title = title;
+        this.artist = artist;
+        this.album = album;
+        this.genre = genre;
+        this.durationMillis = durationMillis;
+        this.offsetTagMillis = offsetTagMillis;
+        this.lines = (lines != null) ? List.copyOf(lines) : Collections.emptyList();
+        this.diagnostics = (diagnostics != null) ? diagnostics : new ParseDiagnostics();
+        this.charset = charset;
+        this.textPoolSummary = textPoolSummary;
+        if (wordTimeline == null || wordTimeline.isEmpty()) {
+            this.wordTimeline = WordTimeline.EMPTY;
+        } else if (wordTimeline.getLineCount() != this.lines.size()) {
+            throw new IllegalArgumentException("Word timeline covers " + wordTimeline.getLineCount()
+                                               + " lines, but the document has " + this.lines.size() + ".");
+        } else {
+            this.wordTimeline = wordTimeline;
+        }
+    }
+
+    // --- Metadata Getters ---
+
+    /** @return The song title from the {@code [ti:]} tag, or {@code null} if not present. */
+    public String getTitle() { return title; }
+
+    /** @return The artist from the {@code [ar:]} tag, or {@code null} if not present. */
+    public String getArtist() { return artist; }
+
+    /** @return The album from the {@code [al:]} tag, or {@code null} if not present. */
+    public String getAlbum() { return album; }
+
+    /** @return The genre from the {@code [genre:]} tag, or {@code null} if not present. */
+    public String getGenre() { return genre; }
+
+    /**
+     * @return The duration in milliseconds from the {@code [length:]} tag,
+     *         or {@code null} if the tag is absent or its value is invalid.
+     */
+    public Integer getDurationMillis() { return durationMillis; }
+
+    /**
+     * @return The global offset in milliseconds as declared by the {@code [offset:]} tag,
+     *         or {@code null} if the tag is absent or its value is invalid.
+     */
+    public Long getOffsetTagMillis() { return offsetTagMillis; }
+
+    // --- Lyrics Getters ---
+
+    /**
+     * Returns the global lyric offset to apply during playback (FR3.3).
+     *
+     * @return The {@code [offset:]} value in milliseconds, or 0 if the tag is absent or invalid.
+     */
+    public long getOffsetMillis() {
+        return (offsetTagMillis != null) ? offsetTagMillis : 0L;
+    }
+
+    /**
+     * @return An unmodifiable list of the timed {@link LyricLine}s, sorted by timestamp.
+     */
+    public List<LyricLine> getLines() {
+        return lines;
+    }
+
+    /**
+     * @return The problems found while parsing this document (malformed tags and values).
+     *         Empty if there were none, or if the document was not produced by a text parse (e.g., loaded from a cache).
+     */
+    public ParseDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return The character encoding the file was decoded with (detected, or given as a hint),
+     *         or {@code null} if unknown.
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * @return The word-level timing of the lines from enhanced-LRC word tags, indexed like {@link #getLines()};
+     *         {@link WordTimeline#EMPTY} if the file has no word tags.
+     */
+    public WordTimeline getWordTimeline() {
+        return wordTimeline;
+    }
+
+    /**
+     * @return A summary of how repeated lyric texts were shared while loading, e.g.
+     *         {@code "64 texts, 21 distinct (3.05x), 1480 chars shared"}; {@code null} if unknown.
+     */
+    public String getTextPoolSummary() {
+        return textPoolSummary;
+    }
+
+    /**
+     * Returns a string representation of this document, summarizing its title, artist and line count.
+     *
+     * @return A string summary of this {@code LrcDocument}.
+     */
+    @Override
+    public String toString() {
+        return "LrcDocument{title=" + title + ", artist=" + artist + ", " + lines.size() + " lines}";
+    }
+}
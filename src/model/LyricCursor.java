@@ -0,0 +1,89 @@
+package model;
+
+/**
+ * A stateful reader over the lines of a {@link SongLyrics} that answers "which line is active now?"
+ * for a playback time that mostly moves forward.
+ * <p>
+ * The cursor remembers the index it last returned. On a normal playback tick the active line is either
+ * unchanged or one of the next few lines, which is checked by stepping forward in O(1). A backward jump,
+ * or a forward jump of more than {@link #MAX_FORWARD_STEPS} lines (e.g., after a seek), falls back to the
+ * O(log n) binary search of {@link SongLyrics#getIndexAtTime(long, long)}. Results are always identical to it.
+ * <p>
+ * Obtain one with {@link SongLyrics#newCursor()}. A cursor is not thread-safe; it is meant to be owned by the
+ * service that drives the lyric display and used from a single thread. Supports FR3.4 (Display synchronized lyrics).
+ */
+public class LyricCursor {
+
+    /** Number of lines the cursor steps forward before it switches to a binary search. */
+    public static final int MAX_FORWARD_STEPS = 4;
+
+    private final SongLyrics lyrics;
+    private final long[] timestamps;    // Sorted line timestamps shared with 'lyrics'
+    private int index = -1;             // Index returned by the last lookup (-1: before the first line)
+    private boolean positioned;         // False until the first lookup and after reset()
+
+    /**
+     * Constructs a cursor over the given lyrics. Called by {@link SongLyrics#newCursor()}.
+     *
+     * @param lyrics The lyrics to read.
+     * @param timestamps The sorted timestamps of the lyrics' lines, not copied.
+     */
+    LyricCursor(SongLyrics lyrics, long[] timestamps) {
+        this.lyrics = lyrics;
+        this.timestamps = timestamps;
+    }
+
+    /**
+     * Finds the index of the active line at the given playback time, as
+     * {@link SongLyrics#getIndexAtTime(long, long)} does, starting from the previous result.
+     * (Supports FR3.2, FR3.3)
+     *
+     * @param currentPlaybackMillis The current playback time of the song, in milliseconds.
+     * @param totalEffectiveOffset The total offset to apply to lyric timestamps, in milliseconds.
+     * @return The index of the active line, or -1 if no line is active yet or the lyrics are empty.
+     */
+    public int indexAt(long currentPlaybackMillis, long totalEffectiveOffset) {
+        long lyricMillis = currentPlaybackMillis - totalEffectiveOffset;
+        if (positioned && (index < 0 || timestamps[index] <= lyricMillis)) {
+            // Still at or after the current line: step forward over the lines that have started since.
+            int steps = 0;
+            while (index + 1 < timestamps.length && timestamps[index + 1] <= lyricMillis) {
+                if (++steps > MAX_FORWARD_STEPS) {
+                    index = lyrics.getIndexAtTime(currentPlaybackMillis, totalEffectiveOffset); // Large jump
+                    return index;
+                }
+                index++;
+            }
+            return index;
+        }
+        index = lyrics.getIndexAtTime(currentPlaybackMillis, totalEffectiveOffset); // First lookup or backward jump
+        positioned = true;
+        return index;
+    }
+
+    /**
+     * Finds the active line at the given playback time, as {@link SongLyrics#getLineAtTime(long, long)} does.
+     *
+     * @param currentPlaybackMillis The current playback time of the song, in milliseconds.
+     * @param totalEffectiveOffset The total offset to apply to lyric timestamps, in milliseconds.
+     * @return The active {@link LyricLine}, or {@code null} if no line is active.
+     */
+    public LyricLine lineAt(long currentPlaybackMillis, long totalEffectiveOffset) {
+        int active = indexAt(currentPlaybackMillis, totalEffectiveOffset);
+        return (active >= 0) ? lyrics.getLineAt(active) : null;
+    }
+
+    /**
+     * Forgets the remembered position, so the next lookup performs a binary search.
+     * Call after a seek, or when the offset changes abruptly.
+     */
+    public void reset() {
+        positioned = false;
+        index = -1;
+    }
+
+    /** @return The lyrics this cursor reads. */
+    public SongLyrics getLyrics() {
+        return lyrics;
+    }
+}
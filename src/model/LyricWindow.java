@@ -0,0 +1,102 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * An immutable window of lyric lines around the active line, as shown by the lyric views:
+ * {@code linesBefore} lines before the active one, the active line itself, and {@code linesAfter} lines after it.
+ * Positions outside the song's lines hold {@code null}.
+ * <p>
+ * A window is a view over the {@link SongLyrics} of the song, shared by all its windows, so creating one costs a
+ * single small object regardless of its size, and no per-line objects are kept: {@link #get(int)} creates the
+ * {@link LyricLine} it returns, while {@link #getTextAt(int)} reads the text without allocating. Because consecutive
+ * windows share the same lyrics, a view can tell with {@link #isSuccessorOf(LyricWindow)} that the window merely
+ * slid by one line and update only the line that scrolled in.
+ * Supports FR3.4 (Display synchronized lyrics).
+ */
+public class LyricWindow extends AbstractList<LyricLine> implements RandomAccess {
+
+    private final SongLyrics lyrics;    // All lines of the song, shared between windows
+    private final int activeIndex;      // Index in 'lyrics' of the active line, -1 before the first line
+    private final int linesBefore;
+    private final int size;
+
+    /**
+     * Constructs a {@code LyricWindow}.
+     *
+     * @param lyrics      All lyric lines of the song, shared, not copied.
+     * @param activeIndex The index of the active line in {@code lyrics}, or -1 if no line is active yet.
+     * @param linesBefore The number of lines shown before the active line, at least 0.
+     * @param linesAfter  The number of lines shown after the active line, at least 0.
+     * @throws IllegalArgumentException If {@code linesBefore} or {@code linesAfter} is negative.
+     */
+    public LyricWindow(SongLyrics lyrics, int activeIndex, int linesBefore, int linesAfter) {
+        if (linesBefore < 0 || linesAfter < 0) {
+            throw new IllegalArgumentException("Window sizes cannot be negative: " + linesBefore + " before, " + linesAfter + " after.");
+        }
+        this.lyrics = lyrics;
+        this.activeIndex = activeIndex;
+        this.linesBefore = linesBefore;
+        this.size = linesBefore + 1 + linesAfter;
+    }
+
+    /**
+     * @param slot The position in the window, between 0 and {@link #size()} (exclusive).
+     * @return The lyric line shown at that position, or {@code null} if it lies before the first or after the last line.
+     * @throws IndexOutOfBoundsException If the slot is out of range.
+     */
+    @Override
+    public LyricLine get(int slot) {
+        int index = lineIndexAt(slot);
+        return (index >= 0) ? lyrics.getLineAt(index) : null;
+    }
+
+    /**
+     * Reads the text shown at a position without creating a {@link LyricLine}.
+     *
+     * @param slot The position in the window, between 0 and {@link #size()} (exclusive).
+     * @return The text of the lyric line at that position, or {@code null} if it lies before the first or after the last line.
+     * @throws IndexOutOfBoundsException If the slot is out of range.
+     */
+    public String getTextAt(int slot) {
+        int index = lineIndexAt(slot);
+        return (index >= 0) ? lyrics.getTextAt(index) : null;
+    }
+
+    /** @return The number of positions in the window, {@code linesBefore + 1 + linesAfter}. */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // --- Getters ---
+
+    /** @return The index of the active line among all lines of the song, or -1 if no line is active yet. */
+    public int getActiveIndex() { return activeIndex; }
+
+    /** @return The position of the active line within this window, which equals the number of lines before it. */
+    public int getActiveSlot() { return linesBefore; }
+
+    /**
+     * Checks whether this window is {@code previous} moved forward by exactly one line, i.e. both show the
+     * same song with the same shape, and every line except the last one is already shown by {@code previous},
+     * one position higher.
+     *
+     * @param previous The window shown before this one, may be {@code null}.
+     * @return {@code true} if this window directly follows {@code previous}.
+     */
+    public boolean isSuccessorOf(LyricWindow previous) {
+        return previous != null && previous.lyrics == lyrics && previous.linesBefore == linesBefore
+               && previous.size == size && previous.activeIndex + 1 == activeIndex;
+    }
+
+    /** @return The index in {@code lyrics} of the line at {@code slot}, or -1 if there is no line there. */
+    private int lineIndexAt(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of range [0, " + size + ")");
+        }
+        int index = activeIndex - linesBefore + slot;
+        return (index >= 0 && index < lyrics.getSize()) ? index : -1;
+    }
+}
@@ -0,0 +1,142 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Collects the problems found while parsing LRC files (malformed time tags, {@code [length:]}
+ * or {@code [offset:]} values), so they can be reported once instead of being printed per line.
+ * <p>
+ * Problems are counted per {@link Kind}. The line number and kind of the first {@link #MAX_DETAILS}
+ * problems are also kept, in primitive arrays, so recording stays cheap on badly broken files.
+ * One instance is filled by a single parse and then carried by its {@link LrcDocument}; several can be
+ * combined with {@link #addAll(ParseDiagnostics)}, e.g. to summarize a library scan (FR3.1).
+ * <p>
+ * Instances are mutable and not thread-safe; each parse fills its own.
+ */
+public class ParseDiagnostics {
+
+    /** The kinds of problem a parse can report. */
+    public enum Kind {
+        /** A time tag such as {@code [01:75.00]} with out-of-range components; the tag is skipped. */
+        INVALID_TIME_TAG,
+        /** A {@code [length:]} value that is not a valid {@code mm:ss[.xxx]} duration; the tag is ignored. */
+        INVALID_DURATION,
+        /** An {@code [offset:]} value that is not a valid integer; the tag is ignored. */
+        INVALID_OFFSET
+    }
+
+    /** Maximum number of problems whose line number and kind are kept individually. */
+    public static final int MAX_DETAILS = 64;
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final int[] countsByKind = new int[KINDS.length];
+    private int[] lineNumbers = new int[0];  // 1-based line numbers of the recorded problems
+    private byte[] kinds = new byte[0];      // Kind ordinals, parallel to 'lineNumbers'
+    private int detailCount;                 // Number of valid entries in the detail arrays
+    private int totalCount;                  // All problems, including those beyond MAX_DETAILS
+
+    /**
+     * Records a problem.
+     *
+     * @param kind The kind of problem.
+     * @param lineNumber The 1-based line number in the file where it occurred.
+     */
+    public void record(Kind kind, int lineNumber) {
+        countsByKind[kind.ordinal()]++;
+        totalCount++;
+        addDetail(kind.ordinal(), lineNumber);
+    }
+
+    /**
+     * Adds the counts and details of another collector to this one. Details are kept
+     * up to {@link #MAX_DETAILS} overall; their line numbers refer to the other collector's file.
+     *
+     * @param other The diagnostics to add. Ignored if {@code null}.
+     */
+    public void addAll(ParseDiagnostics other) {
+        if (other == null) {
+            return;
+        }
+        for (int k = 0; k < countsByKind.length; k++) {
+            countsByKind[k] += other.countsByKind[k];
+        }
+        totalCount += other.totalCount;
+        for (int i = 0; i < other.detailCount && detailCount < MAX_DETAILS; i++) {
+            addDetail(other.kinds[i], other.lineNumbers[i]);
+        }
+    }
+
+    // --- Getters ---
+
+    /** @return {@code true} if no problem has been recorded. */
+    public boolean isEmpty() { return totalCount == 0; }
+
+    /** @return The total number of problems recorded. */
+    public int getTotalCount() { return totalCount; }
+
+    /**
+     * @param kind The kind of problem.
+     * @return The number of problems of that kind.
+     */
+    public int getCount(Kind kind) { return countsByKind[kind.ordinal()]; }
+
+    /** @return The number of problems whose details were kept, at most {@link #MAX_DETAILS}. */
+    public int getDetailCount() { return detailCount; }
+
+    /**
+     * @param index The index of a kept problem, between 0 and {@link #getDetailCount()} (exclusive).
+     * @return The 1-based line number of that problem.
+     */
+    public int getLineNumberAt(int index) {
+        checkDetailIndex(index);
+        return lineNumbers[index];
+    }
+
+    /**
+     * @param index The index of a kept problem, between 0 and {@link #getDetailCount()} (exclusive).
+     * @return The kind of that problem.
+     */
+    public Kind getKindAt(int index) {
+        checkDetailIndex(index);
+        return KINDS[kinds[index]];
+    }
+
+    /**
+     * Returns a one-line summary of the counts per kind, e.g. {@code "3 problems (INVALID_TIME_TAG: 2, INVALID_OFFSET: 1)"}.
+     *
+     * @return A string summary of this {@code ParseDiagnostics}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(totalCount).append(totalCount == 1 ? " problem" : " problems");
+        String separator = " (";
+        for (Kind kind : KINDS) {
+            if (countsByKind[kind.ordinal()] > 0) {
+                sb.append(separator).append(kind).append(": ").append(countsByKind[kind.ordinal()]);
+                separator = ", ";
+            }
+        }
+        return (totalCount > 0) ? sb.append(')').toString() : sb.toString();
+    }
+
+    private void addDetail(int kindOrdinal, int lineNumber) {
+        if (detailCount == MAX_DETAILS) {
+            return; // Counted above, but no longer itemized
+        }
+        if (detailCount == lineNumbers.length) {
+            int capacity = Math.min(MAX_DETAILS, Math.max(4, detailCount * 2));
+            lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+        }
+        lineNumbers[detailCount] = lineNumber;
+        kinds[detailCount] = (byte) kindOrdinal;
+        detailCount++;
+    }
+
+    private void checkDetailIndex(int index) {
+        if (index < 0 || index >= detailCount) {
+            throw new IndexOutOfBoundsException("Detail index " + index + " out of range [0, " + detailCount + ")");
+        }
+    }
+}
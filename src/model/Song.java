@@ -30,6 +30,7 @@ public class Song {
     private final Long offset;          // Lyrics synchronization offset in milliseconds, nullable (SRS FR3.1)
     private final String audioFilePath; // Path to the audio file (SRS FR1.1)
     private final String lyricsFilePath;// Path to the lyrics file, can be null (SRS FR3.1)
+    private final String lyricsCharset; // Detected encoding of the lyrics file, can be null (SRS FR3.1)
 
     /**
      * Constructs an immutable {@code Song} object with specified details.
@@ -46,6 +47,27 @@ public class Song {
      * @throws IllegalArgumentException if {@code title}, {@code artist}, or {@code audioFilePath} are blank, or if {@code duration} is not positive.
      */
     public Song(int id, String title, String artist, String genre, Integer duration, Long offset, String audioFilePath, String lyricsFilePath) {
+        this(id, title, artist, genre, duration, offset, audioFilePath, lyricsFilePath, null);
+    }
+
+    /**
+     * Constructs an immutable {@code Song} object that also records the detected encoding of its lyrics file,
+     * so later lyric loads can skip charset detection.
+     *
+     * @param id                        The unique identifier for the song (e.g., from the database).
+     * @param title                     The title of the song. Must not be null or blank.
+     * @param artist                    The artist of the song. Must not be null or blank.
+     * @param genre                     The genre of the song. May be {@code null} if not specified.
+     * @param duration                  The duration of the song in milliseconds. Must not be null and must be positive.
+     * @param offset                    The global lyrics synchronization offset in milliseconds. May be {@code null}.
+     * @param audioFilePath             The file path to the audio file (e.g., .mp3). Must not be null or blank.
+     * @param lyricsFilePath            The file path to the lyrics file (e.g., .lrc). May be {@code null}.
+     * @param lyricsCharset             The charset name of the lyrics file (e.g., "UTF-8", "GBK"). May be {@code null} if unknown.
+     * @throws NullPointerException     if {@code title}, {@code artist}, {@code audioFilePath}, or {@code duration} are {@code null}.
+     * @throws IllegalArgumentException if {@code title}, {@code artist}, or {@code audioFilePath} are blank, or if {@code duration} is not positive.
+     */
+    public Song(int id, String title, String artist, String genre, Integer duration, Long offset, String audioFilePath,
+                String lyricsFilePath, String lyricsCharset) {
         Objects.requireNonNull(title, "Song title cannot be null.");
         Objects.requireNonNull(artist, "Song artist cannot be null.");
         Objects.requireNonNull(audioFilePath, "Song audio file path cannot be null.");
@@ -72,6 +94,7 @@ public class Song {
         this.offset = offset;
         this.audioFilePath = audioFilePath.trim();
         this.lyricsFilePath = (lyricsFilePath != null) ? lyricsFilePath.trim() : null;
+        this.lyricsCharset = (lyricsCharset != null && !lyricsCharset.isBlank()) ? lyricsCharset.trim() : null;
     }
 
     // --- Getters ---
@@ -124,6 +147,12 @@ public class Song {
      */
     public String getLyricsFilePath() { return lyricsFilePath; }
 
+    /**
+     * Returns the name of the charset the lyrics file was detected to use (supports FR3.1).
+     * @return The charset name (e.g., "UTF-8", "GBK"), or {@code null} if not yet detected.
+     */
+    public String getLyricsCharset() { return lyricsCharset; }
+
     // --- Utility method for formatted duration ---
 
     /**
@@ -1,12 +1,17 @@
 package model;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.Objects;
+import java.util.RandomAccess;
 
 /**
  * Represents the complete set of timed lyric lines for a song.
- * This class acts as an immutable container for a list of {@link LyricLine} objects.
+ * This class acts as an immutable container for the lyric lines of a song.
  * It provides functionality to retrieve specific lyric lines based on playback time,
  * considering an effective offset.
  * <p>
@@ -17,38 +22,99 @@ import java.util.Objects;
  *   <li>FR3.3: Handling lyric timing adjustments (via the {@code totalEffectiveOffset} parameter).</li>
  * </ul>
  * The list of lyric lines is expected to be sorted by timestamp upon construction.
+ * <p>
+ * Lines are stored as parallel arrays (a {@code long[]} of timestamps and a {@code String[]} of texts)
+ * rather than as {@link LyricLine} objects, which keeps lookups cache-friendly and the retained heap small
+ * when the lyrics of many songs are kept in memory. {@link #getLines()} is a view that creates
+ * {@link LyricLine} objects on access; {@link #getTimestampAt(int)} and {@link #getTextAt(int)} read the
+ * arrays directly.
  */
 public class SongLyrics {
-    private final List<LyricLine> lines;
-    
-    // For typical song lengths, linear scan is generally performant enough.
+    private final long[] timestamps; // Line timestamps in milliseconds, sorted
+    private final String[] texts;    // Line texts, parallel to 'timestamps'
+    private final List<LyricLine> linesView = new LinesView();
 
     /**
      * Constructs a {@code SongLyrics} object from a list of {@link LyricLine}s.
-     * The provided list is defensively copied to ensure immutability of this object.
+     * The timestamps and texts of the lines are copied, so later changes to the list do not affect this object.
      * It is assumed that the incoming list of lines is already sorted by timestamp.
      *
      * @param lines A {@link List} of {@link LyricLine} objects, ideally pre-sorted by their timestamps.
      *              If {@code null}, an empty list of lyrics will be stored.
+     * @throws NullPointerException If the list contains a {@code null} line.
      */
     public SongLyrics(List<LyricLine> lines) {
-        // Store an immutable copy of the list to prevent external modifications.
-        // If the input list is null, an empty list is used, ensuring 'this.lines' is never null.
-        this.lines = (lines != null) ? List.copyOf(lines) : Collections.emptyList();
+        int size = (lines != null) ? lines.size() : 0;
+        this.timestamps = new long[size];
+        this.texts = new String[size];
+        for (int i = 0; i < size; i++) {
+            LyricLine line = lines.get(i);
+            timestamps[i] = line.getTimestampMillis();
+            texts[i] = line.getText();
+        }
+    }
+
+    /**
+     * Constructs a {@code SongLyrics} object directly from parallel arrays, without intermediate
+     * {@link LyricLine} objects. The arrays are defensively copied.
+     *
+     * @param timestamps The line timestamps in milliseconds, expected to be sorted and non-negative.
+     * @param texts The line texts, parallel to {@code timestamps}; no element may be {@code null}.
+     * @throws IllegalArgumentException If the arrays differ in length.
+     * @throws NullPointerException If an array or a text is {@code null}.
+     */
+    public SongLyrics(long[] timestamps, String[] texts) {
+        if (timestamps.length != texts.length) {
+            throw new IllegalArgumentException("Timestamps and texts must have the same length.");
+        }
+        this.timestamps = timestamps.clone();
+        this.texts = texts.clone();
+        for (String text : this.texts) {
+            Objects.requireNonNull(text, "Lyric text cannot be null.");
+        }
     }
 
     // --- Getters ---
 
     /**
      * Returns an unmodifiable view of the list of individual lyric lines.
-     * The list is guaranteed to be sorted if the input list provided to the constructor was sorted.
+     * The list is guaranteed to be sorted if the input provided to the constructor was sorted.
+     * Each access creates a {@link LyricLine} from the stored arrays; prefer {@link #getTimestampAt(int)}
+     * and {@link #getTextAt(int)} in frequently executed code.
      * (Supports FR3.1)
      *
      * @return An unmodifiable {@link List} of {@link LyricLine} objects. This list will be empty
      *         if no lines were provided or if the input was {@code null}.
      */
     public List<LyricLine> getLines() {
-        return lines;
+        return linesView;
+    }
+
+    /**
+     * @param index The index of a line, between 0 and {@link #getSize()} (exclusive).
+     * @return The timestamp of that line, in milliseconds.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public long getTimestampAt(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * @param index The index of a line, between 0 and {@link #getSize()} (exclusive).
+     * @return The text of that line.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public String getTextAt(int index) {
+        return texts[index];
+    }
+
+    /**
+     * @param index The index of a line, between 0 and {@link #getSize()} (exclusive).
+     * @return A {@link LyricLine} holding the timestamp and text of that line.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public LyricLine getLineAt(int index) {
+        return new LyricLine(timestamps[index], texts[index]);
     }
 
     // --- Core Functionality ---
@@ -67,58 +133,80 @@ public class SongLyrics {
      *         at that time (e.g., before the first lyric or if lyrics are empty).
      */
     public LyricLine getLineAtTime(long currentPlaybackMillis, long totalEffectiveOffset) {
-        if (lines.isEmpty()) {
-            return null; // No lyrics to display
-        }
-
-        LyricLine activeLine = null;
-
-        // Iterate through the sorted lines
-        for (LyricLine line : lines) {
-            // Calculate the effective time this line should appear
-            long effectiveTimestamp = line.getTimestampMillis() + totalEffectiveOffset;
-
-            // If the line's effective time is on or before the current playback time,
-            // it's a candidate for the currently active line.
-            if (effectiveTimestamp <= currentPlaybackMillis) {
-                activeLine = line;
-            } else {
-                // Since the list is sorted, once we pass the current playback time,
-                // we can stop searching. The previous 'activeLine' is the correct one.
-                break;
-            }
-        }
-        // Return the last line that met the criteria
-        return activeLine;
+        int index = getIndexAtTime(currentPlaybackMillis, totalEffectiveOffset);
+        return (index >= 0) ? getLineAt(index) : null;
     }
 
     /**
      * Finds the index of the lyric line that should be considered active at a specific playback time,
      * applying a given total effective offset.
+     * The offset is applied once to the query time rather than to every line, and the sorted timestamps
+     * are binary searched, so a lookup costs O(log n) even for very long lyric files.
      * (Supports FR3.2, FR3.3)
      *
      * @param currentPlaybackMillis The current playback time of the song, in milliseconds.
      * @param totalEffectiveOffset  The total offset to apply to lyric timestamps, in milliseconds.
      * @return The index of the active {@link LyricLine} in the internal list. Returns -1 if no line
-     *         is active at that time or if lyrics are empty.
+     *         is active at that time or if lyrics are empty. Among lines with equal timestamps, the last one is active.
      */
     public int getIndexAtTime(long currentPlaybackMillis, long totalEffectiveOffset) {
-         if (lines.isEmpty()) {
-            return -1;
-        }
+        // A line is active once timestamp + offset <= playback time, i.e. timestamp <= playback time - offset.
+        long lyricMillis = currentPlaybackMillis - totalEffectiveOffset;
+        int low = 0;
+        int high = timestamps.length - 1;
         int activeIndex = -1;
-        for (int i = 0; i < lines.size(); i++) {
-             LyricLine line = lines.get(i);
-             long effectiveTimestamp = line.getTimestampMillis() + totalEffectiveOffset;
-             if (effectiveTimestamp <= currentPlaybackMillis) {
-                 activeIndex = i;
-             } else {
-                 break; // Found the boundary
-             }
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] <= lyricMillis) {
+                activeIndex = mid; // Candidate; look for a later line that is also active
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
         }
         return activeIndex;
     }
 
+    /**
+     * Returns the playback time at which the active line will next change, assuming playback continues
+     * forward from {@code currentPlaybackMillis} with the same offset. Until then,
+     * {@link #getIndexAtTime(long, long)} keeps returning the same index, so callers can skip work
+     * (or schedule a single wakeup) between line boundaries.
+     * (Supports FR3.2, FR3.3)
+     *
+     * @param currentPlaybackMillis The current playback time of the song, in milliseconds.
+     * @param totalEffectiveOffset  The total offset to apply to lyric timestamps, in milliseconds.
+     * @return The effective timestamp of the first line that is not yet active, or {@link Long#MAX_VALUE}
+     *         if every line is already active (or there are no lines).
+     */
+    public long nextChangeAtMillis(long currentPlaybackMillis, long totalEffectiveOffset) {
+        return nextChangeAfterIndex(getIndexAtTime(currentPlaybackMillis, totalEffectiveOffset), totalEffectiveOffset);
+    }
+
+    /**
+     * Returns the playback time at which the line after {@code activeIndex} becomes active.
+     * Because an active index is always the last of its equal timestamps, that line starts strictly later.
+     *
+     * @param activeIndex An index returned by {@link #getIndexAtTime(long, long)} or a {@link LyricCursor}, or -1.
+     * @param totalEffectiveOffset The total offset to apply to lyric timestamps, in milliseconds.
+     * @return The effective timestamp of the next line, or {@link Long#MAX_VALUE} if {@code activeIndex} is the last line.
+     */
+    public long nextChangeAfterIndex(int activeIndex, long totalEffectiveOffset) {
+        int next = activeIndex + 1;
+        return (next < timestamps.length) ? timestamps[next] + totalEffectiveOffset : Long.MAX_VALUE;
+    }
+
+    /**
+     * Creates a {@link LyricCursor} over these lyrics, for repeated lookups with a mostly increasing
+     * playback time (amortized O(1) per lookup instead of O(log n)).
+     * (Supports FR3.4)
+     *
+     * @return A new cursor, positioned before its first lookup.
+     */
+    public LyricCursor newCursor() {
+        return new LyricCursor(this, timestamps);
+    }
+
     /**
      * Checks if this {@code SongLyrics} object contains any lyric lines.
      * (Supports FR3.1)
@@ -126,17 +214,31 @@ public class SongLyrics {
      * @return {@code true} if there are no lyric lines stored; {@code false} otherwise.
      */
     public boolean isEmpty() {
-        return lines.isEmpty();
+        return timestamps.length == 0;
     }
 
     /**
      * Returns the total number of lyric lines stored in this object.
      * (Supports FR3.1)
      *
-     * @return The count of {@link LyricLine} objects.
+     * @return The number of lyric lines.
      */
     public int getSize() {
-        return lines.size();
+        return timestamps.length;
+    }
+
+    /**
+     * Counts the distinct {@link String} instances holding the texts of the lines. Texts read by
+     * {@code util.LrcParser} or {@code util.LyricsBinaryCache} are deduplicated, so a repeated line (e.g., a chorus)
+     * is held once, and {@code getSize() / getDistinctTextCount()} is the deduplication ratio of the song.
+     * Runs in O(n); intended for reporting, not for per-tick code.
+     *
+     * @return The number of distinct text instances, 0 if there are no lines.
+     */
+    public int getDistinctTextCount() {
+        Set<String> distinct = Collections.newSetFromMap(new IdentityHashMap<>(texts.length));
+        Collections.addAll(distinct, texts);
+        return distinct.size();
     }
 
     // --- Overridden Object methods ---
@@ -149,13 +251,13 @@ public class SongLyrics {
      */
     @Override
     public String toString() {
-        return "SongLyrics{" + lines.size() + " lines}";
+        return "SongLyrics{" + timestamps.length + " lines}";
     }
 
     /**
      * Indicates whether some other object is "equal to" this one.
-     * Two {@code SongLyrics} objects are considered equal if their respective lists of
-     * {@link LyricLine} objects are equal (i.e., contain the same lines in the same order).
+     * Two {@code SongLyrics} objects are considered equal if they contain the same lines
+     * (timestamps and texts) in the same order.
      *
      * @param o The reference object with which to compare.
      * @return {@code true} if this object is the same as the {@code o} argument;
@@ -166,7 +268,7 @@ public class SongLyrics {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         SongLyrics that = (SongLyrics) o;
-        return Objects.equals(lines, that.lines);
+        return Arrays.equals(timestamps, that.timestamps) && Arrays.equals(texts, that.texts);
     }
 
     /**
@@ -174,10 +276,23 @@ public class SongLyrics {
      * This method is supported for the benefit of hash tables such as those provided by
      * {@link java.util.HashMap}.
      *
-     * @return A hash code value for this object, based on its list of lyric lines.
+     * @return A hash code value for this object, based on its lyric lines.
      */
     @Override
     public int hashCode() {
-        return Objects.hash(lines);
+        return 31 * Arrays.hashCode(timestamps) + Arrays.hashCode(texts);
+    }
+
+    /** Read-only {@link List} view over the parallel arrays, returned by {@link #getLines()}. */
+    private final class LinesView extends AbstractList<LyricLine> implements RandomAccess {
+        @Override
+        public LyricLine get(int index) {
+            return getLineAt(index);
+        }
+
+        @Override
+        public int size() {
+            return timestamps.length;
+        }
     }
 }
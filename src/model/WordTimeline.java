@@ -0,0 +1,131 @@
+package model;
+
+/**
+ * Word-level timing for the lyric lines of a song, from enhanced-LRC word tags
+ * ({@code [00:12.00]<00:12.00>Hello <00:12.50>world}).
+ * <p>
+ * All words of a song are stored in parallel primitive arrays (time, start, length) rather than as one
+ * object per word. Word times are relative to the timestamp of their line, so the copies of a line with
+ * several timestamps (e.g., a repeated chorus) share the same words; each line refers to its words by a
+ * first index and a count. Start and length locate the word in the line's text, from which the tags have
+ * been removed. A word of length 0 marks when the previous word ends.
+ * <p>
+ * Lines are indexed like the sorted lyric lines of the {@link LrcDocument} the timeline belongs to.
+ * Supports SRS FR3.2 (Parse timestamps and text) and FR3.4 (Display synchronized lyrics) at word level.
+ * Instances are immutable; the arrays passed to the constructor are owned by the instance.
+ */
+public class WordTimeline {
+
+    /** A timeline without words, for lyrics that have no word tags. */
+    public static final WordTimeline EMPTY = new WordTimeline(new long[0], new int[0], new int[0], new int[0], new int[0]);
+
+    private final long[] wordTimes;      // Word time relative to its line's timestamp, in ms
+    private final int[] wordStarts;      // Start of the word in its line's text
+    private final int[] wordLengths;     // Length of the word in its line's text
+    private final int[] lineFirstWord;   // Per line: index of its first word
+    private final int[] lineWordCount;   // Per line: number of words (0 if the line has no word tags)
+
+    /**
+     * Constructs a {@code WordTimeline}. The word arrays must have the same length, and so must the line arrays.
+     * Within each line, words are expected in tag order with non-decreasing times.
+     *
+     * @param wordTimes     Per word: time relative to the timestamp of its line, in milliseconds.
+     * @param wordStarts    Per word: start index in the text of its line.
+     * @param wordLengths   Per word: length in the text of its line.
+     * @param lineFirstWord Per line: index of the line's first word.
+     * @param lineWordCount Per line: number of words of the line.
+     * @throws IllegalArgumentException If the array lengths do not match.
+     */
+    public WordTimeline(long[] wordTimes, int[] wordStarts, int[] wordLengths, int[] lineFirstWord, int[] lineWordCount) {
+        if (wordStarts.length != wordTimes.length || wordLengths.length != wordTimes.length
+                || lineWordCount.length != lineFirstWord.length) {
+            throw new IllegalArgumentException("Word and line arrays must have matching lengths.");
+        }
+        this.wordTimes = wordTimes;
+        this.wordStarts = wordStarts;
+        this.wordLengths = wordLengths;
+        this.lineFirstWord = lineFirstWord;
+        this.lineWordCount = lineWordCount;
+    }
+
+    // --- Lookup ---
+
+    /**
+     * Finds the word of a line that is active at a given time into the line, using a binary search
+     * over the line's word times (O(log n) in the number of words of the line).
+     *
+     * @param lineIndex     The index of the line (as in the sorted lyric lines).
+     * @param millisIntoLine The playback time minus the line's effective timestamp, in milliseconds.
+     * @return The index of the last word of the line whose time is at or before {@code millisIntoLine},
+     *         or -1 if the line has no words, or none has started yet.
+     */
+    public int getWordIndexAt(int lineIndex, long millisIntoLine) {
+        if (lineIndex < 0 || lineIndex >= lineFirstWord.length) {
+            return -1;
+        }
+        int low = lineFirstWord[lineIndex];
+        int high = low + lineWordCount[lineIndex] - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (wordTimes[mid] <= millisIntoLine) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    // --- Getters ---
+
+    /** @return {@code true} if no line has word timing. */
+    public boolean isEmpty() { return wordTimes.length == 0; }
+
+    /** @return The number of words stored (shared words of repeated lines are stored once). */
+    public int getWordCount() { return wordTimes.length; }
+
+    /** @return The number of lines covered by this timeline. */
+    public int getLineCount() { return lineFirstWord.length; }
+
+    /**
+     * @param lineIndex The index of the line.
+     * @return The index of the line's first word; meaningful only if {@link #getWordCount(int)} is positive.
+     */
+    public int getFirstWordIndex(int lineIndex) { return lineFirstWord[lineIndex]; }
+
+    /**
+     * @param lineIndex The index of the line.
+     * @return The number of words of the line, 0 if it has no word tags.
+     */
+    public int getWordCount(int lineIndex) { return lineWordCount[lineIndex]; }
+
+    /**
+     * @param wordIndex The index of a word.
+     * @return The time of the word relative to the timestamp of its line, in milliseconds (may be negative).
+     */
+    public long getWordTimeMillis(int wordIndex) { return wordTimes[wordIndex]; }
+
+    /**
+     * @param wordIndex The index of a word.
+     * @return The start index of the word in the text of its line.
+     */
+    public int getWordStart(int wordIndex) { return wordStarts[wordIndex]; }
+
+    /**
+     * @param wordIndex The index of a word.
+     * @return The length of the word in the text of its line; 0 for a marker ending the previous word.
+     */
+    public int getWordLength(int wordIndex) { return wordLengths[wordIndex]; }
+
+    /**
+     * Returns a string representation of this timeline, summarizing its word and line counts.
+     *
+     * @return A string summary of this {@code WordTimeline}.
+     */
+    @Override
+    public String toString() {
+        return "WordTimeline{" + wordTimes.length + " words, " + lineFirstWord.length + " lines}";
+    }
+}
@@ -0,0 +1,148 @@
+package service;
+
+// --- JavaFX Imports ---
+import javafx.application.Platform;
+
+// --- Java Util Imports ---
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Delivers values produced on background threads (e.g., by a {@code MediaPlayer}) to the JavaFX Application Thread,
+ * keeping only the latest pending value of each {@link Slot}.
+ * <p>
+ * Posting a separate {@link Platform#runLater(Runnable)} for every update lets the FX event queue fill with stale
+ * values when updates arrive faster than the FX thread handles them (e.g., playback time while the UI is busy).
+ * A dispatcher instead schedules at most one drain at a time: values posted before the drain runs replace the
+ * pending value of their slot, and the drain applies the latest value of every slot that changed, in the order
+ * the slots were first posted to. Superseded values are counted as dropped.
+ * <p>
+ * Slots are created once per property and may be posted to from any thread; appliers run on the FX thread.
+ * Supports SRS FR1.6 (Display playback time) by keeping displayed state current under load.
+ */
+public class FxCoalescingDispatcher {
+
+    /**
+     * The pending value of one property, applied on the FX thread by its {@code applier}.
+     *
+     * @param <T> The type of the values.
+     */
+    public final class Slot<T> {
+        private final String name;
+        private final Consumer<T> applier;
+        private T pendingValue;
+        private boolean hasPending;
+
+        private Slot(String name, Consumer<T> applier) {
+            this.name = name;
+            this.applier = applier;
+        }
+
+        /**
+         * Schedules {@code value} to be applied on the FX thread, replacing any value of this slot not applied yet.
+         *
+         * @param value The latest value; may be {@code null}.
+         */
+        public void post(T value) {
+            boolean scheduleDrain;
+            synchronized (FxCoalescingDispatcher.this) {
+                postedCount++;
+                if (hasPending) {
+                    droppedCount++; // The previous value was never applied
+                } else {
+                    hasPending = true;
+                    dirtySlots.add(this);
+                }
+                pendingValue = value;
+                scheduleDrain = !drainScheduled;
+                drainScheduled = true;
+            }
+            if (scheduleDrain) {
+                Platform.runLater(FxCoalescingDispatcher.this::drain);
+            }
+        }
+
+        /** Applies the value taken from this slot by {@link #drain()}. */
+        private void apply(Object value) {
+            @SuppressWarnings("unchecked")
+            T typed = (T) value;
+            applier.accept(typed);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final Set<Slot<?>> dirtySlots = new LinkedHashSet<>(); // Slots with a pending value, first posted first
+    private boolean drainScheduled;
+    private long postedCount;
+    private long droppedCount;
+    private long drainCount;
+
+    /**
+     * Creates a slot whose values are applied by {@code applier} on the FX thread.
+     *
+     * @param name A name for logging, e.g. the property name.
+     * @param applier Applies a value, typically by setting a property; runs on the FX thread.
+     * @param <T> The type of the values.
+     * @return The new slot.
+     */
+    public <T> Slot<T> newSlot(String name, Consumer<T> applier) {
+        return new Slot<>(name, applier);
+    }
+
+    // --- Statistics ---
+
+    /** @return The number of values posted to all slots. */
+    public synchronized long getPostedCount() { return postedCount; }
+
+    /** @return The number of posted values replaced by a newer value before they were applied. */
+    public synchronized long getDroppedCount() { return droppedCount; }
+
+    /** @return The number of drains run on the FX thread, each applying one or more values. */
+    public synchronized long getDrainCount() { return drainCount; }
+
+    /**
+     * Returns a one-line summary, e.g. {@code "1200 posted, 310 dropped, 890 drains"}.
+     *
+     * @return A string summary of this {@code FxCoalescingDispatcher}.
+     */
+    @Override
+    public synchronized String toString() {
+        return postedCount + " posted, " + droppedCount + " dropped, " + drainCount + " drains";
+    }
+
+    // --- Internal ---
+
+    /** Applies the latest value of every slot posted to since the last drain. Runs on the FX thread. */
+    private void drain() {
+        List<Slot<?>> slots;
+        List<Object> values;
+        synchronized (this) {
+            drainScheduled = false;
+            drainCount++;
+            slots = new ArrayList<>(dirtySlots);
+            values = new ArrayList<>(slots.size());
+            for (Slot<?> slot : slots) {
+                values.add(slot.pendingValue);
+                slot.pendingValue = null;
+                slot.hasPending = false;
+            }
+            dirtySlots.clear();
+        }
+        // Applied outside the lock: appliers notify listeners, which may post again (handled by the next drain).
+        for (int i = 0; i < slots.size(); i++) {
+            try {
+                slots.get(i).apply(values.get(i));
+            } catch (RuntimeException e) {
+                System.err.println("FxCoalescingDispatcher: Error applying '" + slots.get(i) + "': " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+}
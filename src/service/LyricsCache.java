@@ -0,0 +1,426 @@
+package service;
+
+// --- Model Imports ---
+import model.LrcDocument;
+import model.ParseDiagnostics;
+import model.SongLyrics;
+import model.WordTimeline;
+
+// --- Util Imports ---
+import util.LyricLineSink;
+import util.LyricsBinaryCache;
+
+// --- Java IO and NIO Imports ---
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+// --- Java Util Imports ---
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory, size-bounded LRU cache of parsed lyrics, so that switching back to a song, or replaying one of
+ * the songs that rotate through an evening, does not read and parse its LRC file again.
+ * <p>
+ * Entries are looked up by the absolute, normalized path of the .lrc file and are only served while the file still has the
+ * size and modification time it had when it was parsed; an entry whose file has changed (e.g., after
+ * {@code util.LrcWriter} saved a new offset) counts as a miss and is replaced. A miss is loaded through
+ * {@link LyricsBinaryCache}, so even a cold entry usually skips the text parse.
+ * <p>
+ * The cache is bounded by an estimate of the heap retained by its entries rather than by their number, since
+ * lyric files vary from a few lines to several hundred. When the budget is exceeded, the least recently used
+ * entries are evicted. Hits, misses and evictions are counted for reporting. Under memory pressure the budget is
+ * scaled down (see {@link #setBudgetScale(double)} and {@link util.MemoryPressureMonitor}), and restored once the
+ * pressure subsides.
+ * <p>
+ * Instances are thread-safe: lookups and updates are synchronized, while files are loaded outside the lock.
+ * Concurrent requests for the same file share one load: a lookup that finds the file already being loaded (e.g.,
+ * by a prefetch of the upcoming song) waits for that load instead of parsing the file a second time. If that load
+ * is interrupted (e.g., the prefetch was cancelled), the waiting lookup loads the file itself rather than failing.
+ * Supports SRS FR3.1 (Parse LRC files) by serving previously parsed results.
+ */
+public class LyricsCache {
+
+    /** Default budget for the retained size of all entries, in bytes. */
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    // Rough JVM object sizes (64-bit, compressed references) used by estimateRetainedBytes(...).
+    private static final long OBJECT_HEADER_BYTES = 16;
+    private static final long ARRAY_HEADER_BYTES = 16;
+    private static final long REFERENCE_BYTES = 4;
+    private static final long STRING_BYTES = 24;       // String object without its byte[] value
+    private static final long ENTRY_OVERHEAD_BYTES = 128; // Entry, map node and key string
+
+    // Keyed by absolute, normalized .lrc path (see sourcePathOf); iteration order is least recently used first.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    // Loads in progress, keyed like 'entries'; completed and removed by the thread that started the load.
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    private long maxBytes;
+    private double budgetScale = 1.0; // Fraction of 'maxBytes' currently allowed
+    private long retainedBytes;     // Sum of the estimates of all entries
+    private long hitCount;
+    private long missCount;
+    private long joinCount;
+    private long evictionCount;
+
+    /**
+     * Constructs a cache with the {@link #DEFAULT_MAX_BYTES default} budget.
+     */
+    public LyricsCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructs a cache with the given budget.
+     *
+     * @param maxBytes The maximum estimated retained size of all entries, in bytes; 0 disables caching.
+     * @throws IllegalArgumentException If {@code maxBytes} is negative.
+     */
+    public LyricsCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache budget cannot be negative: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the parsed lyrics of the given LRC file, from memory if a fresh entry exists, otherwise by loading
+     * the file (see {@link LyricsBinaryCache#loadOrParse(Path, Charset)}) and caching the result.
+     *
+     * @param lrcPath The path to the .lrc file.
+     * @param charsetHint The encoding the file is known to use, or {@code null} to detect it.
+     * @return The cached or newly loaded {@link Entry}.
+     * @throws IOException If the file cannot be read or parsed.
+     */
+    public Entry getOrLoad(Path lrcPath, Charset charsetHint) throws IOException {
+        return lookup(lrcPath, charsetHint, null, true);
+    }
+
+    /**
+     * Returns the parsed lyrics of the given LRC file like {@link #getOrLoad(Path, Charset)}. If this call has to
+     * parse the file from text, its lines are also pushed to {@code sink} while it is read, e.g. to show the first
+     * lines of a long file early (see {@link LyricsBinaryCache#loadOrParse(Path, Charset, LyricLineSink)}). The sink
+     * is not called when the entry is served from memory, by another thread's load, or from the binary cache.
+     *
+     * @param lrcPath The path to the .lrc file.
+     * @param charsetHint The encoding the file is known to use, or {@code null} to detect it.
+     * @param sink The receiver of the lines of a text parse, called on the calling thread.
+     * @return The cached or newly loaded {@link Entry}.
+     * @throws IOException If the file cannot be read or parsed.
+     */
+    public Entry getOrLoad(Path lrcPath, Charset charsetHint, LyricLineSink sink) throws IOException {
+        return lookup(lrcPath, charsetHint, sink, true);
+    }
+
+    /**
+     * Loads the given LRC file into the cache unless a fresh entry already exists, e.g. for a song that will play
+     * soon. Unlike {@link #getOrLoad(Path, Charset)}, finding a fresh entry is not counted as a hit, so background
+     * loads do not distort the hit rate of the lookups made at song changes.
+     *
+     * @param lrcPath The path to the .lrc file.
+     * @param charsetHint The encoding the file is known to use, or {@code null} to detect it.
+     * @throws IOException If the file cannot be read or parsed.
+     */
+    public void prefetch(Path lrcPath, Charset charsetHint) throws IOException {
+        lookup(lrcPath, charsetHint, null, false);
+    }
+
+    /**
+     * Removes the entry of the given LRC file, if any, e.g. after the file was modified.
+     *
+     * @param lrcPath The path to the .lrc file.
+     */
+    public synchronized void invalidate(Path lrcPath) {
+        Entry removed = entries.remove(sourcePathOf(lrcPath).toString());
+        if (removed != null) {
+            retainedBytes -= removed.retainedBytes;
+        }
+    }
+
+    /** Removes all entries. The counters are kept. */
+    public synchronized void clear() {
+        entries.clear();
+        retainedBytes = 0;
+    }
+
+    /**
+     * Changes the budget, evicting least recently used entries if the cache now exceeds it.
+     *
+     * @param maxBytes The maximum estimated retained size of all entries, in bytes; 0 empties the cache.
+     * @throws IllegalArgumentException If {@code maxBytes} is negative.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache budget cannot be negative: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        evictToBudget();
+    }
+
+    /**
+     * Scales the budget down or back up, e.g. when a {@link util.MemoryPressureMonitor} reports a change of the
+     * memory pressure, evicting least recently used entries if the cache now exceeds the scaled budget.
+     * The configured budget ({@link #getMaxBytes()}) is not changed.
+     *
+     * @param budgetScale The fraction of the configured budget the cache may use, between 0 and 1.
+     * @throws IllegalArgumentException If {@code budgetScale} is outside [0, 1].
+     */
+    public synchronized void setBudgetScale(double budgetScale) {
+        if (!(budgetScale >= 0 && budgetScale <= 1)) {
+            throw new IllegalArgumentException("Budget scale must be between 0 and 1: " + budgetScale);
+        }
+        this.budgetScale = budgetScale;
+        evictToBudget();
+    }
+
+    // --- Statistics ---
+
+    /** @return The configured maximum estimated retained size of all entries, in bytes. */
+    public synchronized long getMaxBytes() { return maxBytes; }
+
+    /** @return The budget currently in effect, i.e. the configured budget scaled for memory pressure, in bytes. */
+    public synchronized long getEffectiveMaxBytes() { return effectiveMaxBytes(); }
+
+    /** @return The estimated heap retained by the current entries, in bytes. */
+    public synchronized long getRetainedBytes() { return retainedBytes; }
+
+    /** @return The number of cached files. */
+    public synchronized int getEntryCount() { return entries.size(); }
+
+    /** @return The number of lookups served from memory. */
+    public synchronized long getHitCount() { return hitCount; }
+
+    /** @return The number of lookups and prefetches that had to load the file (absent or stale entry). */
+    public synchronized long getMissCount() { return missCount; }
+
+    /** @return The number of lookups and prefetches that waited for a load of the same file already in progress. */
+    public synchronized long getJoinCount() { return joinCount; }
+
+    /** @return The number of entries removed to stay within the budget. */
+    public synchronized long getEvictionCount() { return evictionCount; }
+
+    /**
+     * Returns a one-line summary, e.g. {@code "42 entries, 1830 KiB of 32768 KiB, 120 hits, 42 misses, 3 joined, 0 evictions"}.
+     *
+     * @return A string summary of this {@code LyricsCache}.
+     */
+    @Override
+    public synchronized String toString() {
+        return entries.size() + " entries, " + (retainedBytes / 1024) + " KiB of " + (effectiveMaxBytes() / 1024) + " KiB, "
+               + hitCount + " hits, " + missCount + " misses, " + joinCount + " joined, " + evictionCount + " evictions";
+    }
+
+    // --- Internal ---
+
+    /**
+     * Normalizes a path the way {@link LyricsBinaryCache} does, so that {@code ./} or {@code ..} segments in a song's
+     * path do not yield a different key than the file watcher's path of the same file.
+     */
+    private static Path sourcePathOf(Path lrcPath) {
+        return lrcPath.toAbsolutePath().normalize();
+    }
+
+    private Entry lookup(Path lrcPath, Charset charsetHint, LyricLineSink sink, boolean countHit) throws IOException {
+        Path source = sourcePathOf(lrcPath);
+        String key = source.toString();
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modifiedMillis = attributes.lastModifiedTime().toMillis();
+
+        CompletableFuture<Entry> ownLoad = new CompletableFuture<>();
+        while (true) {
+            CompletableFuture<Entry> running;
+            synchronized (this) {
+                Entry cached = entries.get(key);
+                if (cached != null && cached.sourceSize == size && cached.sourceModifiedMillis == modifiedMillis) {
+                    if (countHit) {
+                        hitCount++;
+                    }
+                    return cached;
+                }
+                running = loading.putIfAbsent(key, ownLoad);
+                if (running != null) {
+                    joinCount++;
+                } else {
+                    missCount++;
+                }
+            }
+            if (running == null) {
+                break; // This thread loads the file
+            }
+            Entry joined = awaitLoad(running);
+            if (joined != null) {
+                return joined;
+            }
+            // The other load was interrupted (e.g., a cancelled prefetch): look up again, loading here if needed.
+        }
+
+        try {
+            LrcDocument document = LyricsBinaryCache.loadOrParse(source, charsetHint, sink);
+            Entry loaded = new Entry(document, charsetHint, size, modifiedMillis);
+            put(key, loaded); // Cached before the load is removed, so later lookups find the entry
+            ownLoad.complete(loaded);
+            return loaded;
+        } catch (IOException | RuntimeException e) {
+            if (isInterruption(e)) {
+                ownLoad.cancel(false); // Not a failure of the file: joined callers load it themselves
+            } else {
+                ownLoad.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            loading.remove(key, ownLoad);
+        }
+    }
+
+    /**
+     * Waits for a load started by another thread and returns its entry, rethrowing its failure.
+     * Returns {@code null} if that load was interrupted, so the caller never inherits another thread's interrupt.
+     */
+    private static Entry awaitLoad(CompletableFuture<Entry> load) throws IOException {
+        try {
+            return load.join();
+        } catch (CancellationException e) {
+            return null;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /** @return {@code true} if a load failed because its thread was interrupted, not because of the file. */
+    private static boolean isInterruption(Exception e) {
+        return Thread.currentThread().isInterrupted()
+               || e instanceof ClosedByInterruptException || e instanceof InterruptedIOException;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry replaced = entries.remove(key);
+        if (replaced != null) {
+            retainedBytes -= replaced.retainedBytes;
+        }
+        if (entry.retainedBytes > effectiveMaxBytes()) {
+            return; // Larger than the whole budget: serve it once without caching it
+        }
+        entries.put(key, entry);
+        retainedBytes += entry.retainedBytes;
+        evictToBudget();
+    }
+
+    private long effectiveMaxBytes() {
+        return (long) (maxBytes * budgetScale);
+    }
+
+    private void evictToBudget() {
+        long budget = effectiveMaxBytes();
+        Iterator<Entry> eldestFirst = entries.values().iterator();
+        while (retainedBytes > budget && eldestFirst.hasNext()) {
+            retainedBytes -= eldestFirst.next().retainedBytes;
+            eldestFirst.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Estimates the heap retained by the parsed form of a lyrics file: the {@link SongLyrics} arrays and their
+     * distinct text instances, and the word timing.
+     */
+    private static long estimateRetainedBytes(SongLyrics lyrics, WordTimeline words) {
+        int lineCount = lyrics.getSize();
+        long bytes = ENTRY_OVERHEAD_BYTES + OBJECT_HEADER_BYTES
+                     + ARRAY_HEADER_BYTES + (long) lineCount * Long.BYTES      // SongLyrics timestamps
+                     + ARRAY_HEADER_BYTES + (long) lineCount * REFERENCE_BYTES; // SongLyrics texts
+
+        // Texts are deduplicated at load time (see util.LyricTextPool), so each instance is counted once.
+        Set<String> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < lineCount; i++) {
+            String text = lyrics.getTextAt(i);
+            if (distinct.add(text)) {
+                bytes += STRING_BYTES + ARRAY_HEADER_BYTES + (long) text.length() * (isLatin1(text) ? 1 : 2);
+            }
+        }
+
+        if (!words.isEmpty()) {
+            bytes += 5 * ARRAY_HEADER_BYTES
+                     + (long) words.getWordCount() * (Long.BYTES + 2 * Integer.BYTES)
+                     + (long) words.getLineCount() * 2 * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    /** @return {@code true} if the JVM can store {@code text} with one byte per character. */
+    private static boolean isLatin1(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The parsed lyrics of one LRC file, in the form {@link LyricsService} displays them.
+     * Immutable once constructed.
+     */
+    public static final class Entry {
+        private final SongLyrics lyrics;
+        private final long offsetMillis;         // Value of the [offset:] tag, 0 if absent
+        private final Charset charset;           // Encoding of the file, null if unknown
+        private final WordTimeline wordTimeline;
+        private final ParseDiagnostics diagnostics;
+        private final String textPoolSummary;    // Deduplication of the texts when loaded, null if unknown
+        private final long sourceSize;           // Size of the .lrc file when it was loaded
+        private final long sourceModifiedMillis; // Modification time of the .lrc file when it was loaded
+        private final long retainedBytes;        // Estimated heap retained by this entry
+
+        private Entry(LrcDocument document, Charset charsetHint, long sourceSize, long sourceModifiedMillis) {
+            this.lyrics = new SongLyrics(document.getLines());
+            this.offsetMillis = document.getOffsetMillis();
+            this.charset = (document.getCharset() != null) ? document.getCharset() : charsetHint;
+            this.wordTimeline = document.getWordTimeline();
+            this.diagnostics = document.getDiagnostics();
+            this.textPoolSummary = document.getTextPoolSummary();
+            this.sourceSize = sourceSize;
+            this.sourceModifiedMillis = sourceModifiedMillis;
+            this.retainedBytes = estimateRetainedBytes(lyrics, wordTimeline);
+        }
+
+        /** @return The timed lyric lines. */
+        public SongLyrics getLyrics() { return lyrics; }
+
+        /** @return The global offset declared by the file's {@code [offset:]} tag, in milliseconds, 0 if absent. */
+        public long getOffsetMillis() { return offsetMillis; }
+
+        /** @return The encoding the file was decoded with, or {@code null} if unknown. */
+        public Charset getCharset() { return charset; }
+
+        /** @return The word-level timing of the lines, {@link WordTimeline#EMPTY} if the file has none. */
+        public WordTimeline getWordTimeline() { return wordTimeline; }
+
+        /** @return The problems found when the file was parsed; empty if it was loaded from the binary cache. */
+        public ParseDiagnostics getDiagnostics() { return diagnostics; }
+
+        /** @return How repeated texts were shared when the file was loaded, see {@link LrcDocument#getTextPoolSummary()}. */
+        public String getTextPoolSummary() { return textPoolSummary; }
+
+        /** @return The estimated heap retained by this entry, in bytes. */
+        public long getRetainedBytes() { return retainedBytes; }
+    }
+}
@@ -0,0 +1,297 @@
+package service;
+
+// --- JavaFX Imports ---
+import javafx.application.Platform;
+
+// --- Model Imports ---
+import model.LrcDocument;
+
+// --- DAO Imports ---
+import dao.SongDAO;
+
+// --- Util Imports ---
+import util.DatabasePopulator;
+import util.LyricsBinaryCache;
+
+// --- Java IO and NIO Imports ---
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+
+// --- Java Util Imports ---
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the songs directory for .lrc files that are created, modified or deleted while the application runs
+ * (e.g., by an external sync tool), so that caches never serve lyrics or metadata older than the files.
+ * <p>
+ * The watcher uses a {@link WatchService} on a background daemon thread. Editors and sync tools often write a file
+ * several times per save, so events are coalesced per file: a file is processed once no further event arrived for
+ * it during {@link #DEBOUNCE_MILLIS}. Processing a changed file:
+ * <ol>
+ *   <li>removes its entries from the {@link LyricsCache} and the on-disk {@link LyricsBinaryCache};</li>
+ *   <li>re-reads its metadata header and updates its song's database row (see
+ *       {@link SongDAO#updateLyricsMetadata(String, String, String, String, int, Long, String)}),
+ *       unless the file was deleted or lacks a required tag;</li>
+ *   <li>notifies the {@link OnLyricsFileChangedHandler}, if any, on the JavaFX Application Thread.</li>
+ * </ol>
+ * Only songs already in the database are updated; new song files are added by the population at the next start.
+ * If the watch service reports lost events (overflow), the whole {@link LyricsCache} is cleared.
+ * <p>
+ * Saves made by the application itself (a new {@code [offset:]} value written by {@code util.LrcWriter}) are
+ * announced with {@link #expectOwnWrite(Path, long)}: while the file still has the size and modification time
+ * recorded after the save, its events only update the song's offset column, without invalidating the caches,
+ * re-reading the file or notifying the handler.
+ * <p>
+ * Supports SRS FR2.1 (Load song metadata from database) and FR3.1 (Parse LRC files).
+ */
+public class LyricsFileWatcher {
+
+    /** Quiet period after the last event of a file before it is processed, in milliseconds. */
+    public static final long DEBOUNCE_MILLIS = 300;
+
+    private static final String LRC_EXTENSION = ".lrc";
+
+    private final Path directory;
+    private final LyricsCache lyricsCache;
+    private volatile OnLyricsFileChangedHandler onLyricsFileChangedHandler;
+    // Files saved by the application, keyed by absolute, normalized path; removed when their events are processed.
+    private final Map<Path, OwnWrite> ownWrites = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * Constructs a watcher. Call {@link #start()} to begin watching.
+     *
+     * @param directory The directory holding the .lrc files (not watched recursively).
+     * @param lyricsCache The in-memory cache whose entries are invalidated, typically {@link LyricsService#getLyricsCache()}.
+     */
+    public LyricsFileWatcher(Path directory, LyricsCache lyricsCache) {
+        this.directory = directory.toAbsolutePath();
+        this.lyricsCache = lyricsCache;
+    }
+
+    /**
+     * Sets the handler notified of each processed file on the JavaFX Application Thread.
+     *
+     * @param handler The handler, or {@code null} to remove it.
+     */
+    public void setOnLyricsFileChangedHandler(OnLyricsFileChangedHandler handler) {
+        this.onLyricsFileChangedHandler = handler;
+    }
+
+    /**
+     * Records that the application has just saved the given file with a new {@code [offset:]} value, so that the
+     * events of that save are not taken for an external change. Call it right after the save returns; if the file
+     * is changed again before its events are processed, it no longer matches and is processed as usual.
+     * Failures to read the file's attributes are logged, and the save is then processed like any other change.
+     *
+     * @param lrcPath The path of the saved .lrc file.
+     * @param offsetMillis The offset written to the file, in milliseconds.
+     */
+    public void expectOwnWrite(Path lrcPath, long offsetMillis) {
+        Path source = lrcPath.toAbsolutePath().normalize();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+            ownWrites.put(source, new OwnWrite(attributes.size(), attributes.lastModifiedTime().toMillis(), offsetMillis));
+        } catch (IOException e) {
+            System.err.println("LyricsFileWatcher: Cannot read saved file " + source + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts watching the directory on a background thread. Failures (e.g., a missing directory) are logged,
+     * and the application keeps running without file watching.
+     */
+    public void start() {
+        if (watchThread != null) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                               StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("LyricsFileWatcher: Cannot watch " + directory + ": " + e.getMessage());
+            closeWatchService();
+            return;
+        }
+        watchThread = Thread.ofPlatform().daemon().name("lyrics-file-watcher").start(this::watchLoop);
+        System.out.println("LyricsFileWatcher: Watching " + directory + " for lyrics changes.");
+    }
+
+    /**
+     * Stops watching. Changes still waiting for their quiet period are dropped.
+     * This should be called when the application shuts down.
+     */
+    public void dispose() {
+        closeWatchService(); // Wakes the watch thread, which then exits
+        watchThread = null;
+        System.out.println("LyricsFileWatcher: Disposed.");
+    }
+
+    // --- Internal ---
+
+    private void watchLoop() {
+        Map<Path, Long> pending = new HashMap<>(); // Changed file -> time of its last event (System.nanoTime)
+        try {
+            while (true) {
+                WatchKey key;
+                if (pending.isEmpty()) {
+                    key = watchService.take();
+                } else {
+                    long waitNanos = TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS) - (System.nanoTime() - oldest(pending));
+                    key = watchService.poll(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+                }
+                if (key != null) {
+                    collectEvents(key, pending);
+                }
+                processSettled(pending);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Disposed: stop watching.
+        }
+    }
+
+    private void collectEvents(WatchKey key, Map<Path, Long> pending) {
+        long now = System.nanoTime();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                System.err.println("LyricsFileWatcher: Lost file events; clearing the lyrics cache.");
+                lyricsCache.clear();
+            } else if (event.context() instanceof Path name
+                       && name.toString().toLowerCase(Locale.ROOT).endsWith(LRC_EXTENSION)) {
+                pending.put(directory.resolve(name), now); // A later event restarts the file's quiet period
+            }
+        }
+        if (!key.reset()) {
+            System.err.println("LyricsFileWatcher: " + directory + " is no longer accessible; stopped watching.");
+            closeWatchService();
+        }
+    }
+
+    /** Processes, and removes from {@code pending}, the files whose last event is older than the quiet period. */
+    private void processSettled(Map<Path, Long> pending) {
+        long now = System.nanoTime();
+        List<Path> settled = new ArrayList<>();
+        for (Iterator<Map.Entry<Path, Long>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Long> entry = it.next();
+            if (now - entry.getValue() >= TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS)) {
+                settled.add(entry.getKey());
+                it.remove();
+            }
+        }
+        for (Path lrcPath : settled) {
+            processChangedFile(lrcPath);
+        }
+    }
+
+    private void processChangedFile(Path lrcPath) {
+        if (isOwnWrite(lrcPath)) {
+            return;
+        }
+        lyricsCache.invalidate(lrcPath);
+        LyricsBinaryCache.invalidate(lrcPath);
+        if (Files.isRegularFile(lrcPath)) {
+            updateSongRow(lrcPath);
+        } else {
+            System.out.println("LyricsFileWatcher: " + lrcPath.getFileName() + " was removed.");
+        }
+
+        OnLyricsFileChangedHandler handler = onLyricsFileChangedHandler;
+        if (handler != null) {
+            Platform.runLater(() -> handler.handle(lrcPath));
+        }
+    }
+
+    /** Re-reads the metadata of a changed file and stores it in its song's row, as the population would. */
+    private void updateSongRow(Path lrcPath) {
+        try {
+            LrcDocument header = DatabasePopulator.readMetadata(lrcPath);
+            String invalidMetadata = DatabasePopulator.describeInvalidMetadata(header);
+            if (invalidMetadata != null) {
+                System.err.println("LyricsFileWatcher: " + lrcPath.getFileName() + " lacks valid required metadata ("
+                                   + invalidMetadata + "); its song was not updated.");
+                return;
+            }
+            String genre = header.getGenre();
+            int updated = SongDAO.updateLyricsMetadata(lrcPath.toString(), header.getTitle().trim(), header.getArtist().trim(),
+                                                       genre != null ? genre.trim() : null, header.getDurationMillis(),
+                                                       header.getOffsetTagMillis(),
+                                                       header.getCharset() != null ? header.getCharset().name() : null);
+            if (updated > 0) {
+                System.out.println("LyricsFileWatcher: " + lrcPath.getFileName() + " changed; song metadata updated.");
+            } else if (updated == 0) {
+                System.out.println("LyricsFileWatcher: " + lrcPath.getFileName() + " changed; no song uses it yet (added at next start).");
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("LyricsFileWatcher: Cannot read changed file " + lrcPath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether a changed file is still exactly as the application saved it (see
+     * {@link #expectOwnWrite(Path, long)}), and if so stores the saved offset in its song's row.
+     */
+    private boolean isOwnWrite(Path lrcPath) {
+        OwnWrite ownWrite = ownWrites.remove(lrcPath.normalize());
+        if (ownWrite == null) {
+            return false;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(lrcPath, BasicFileAttributes.class);
+            if (attributes.size() != ownWrite.size || attributes.lastModifiedTime().toMillis() != ownWrite.modifiedMillis) {
+                return false; // Changed again since the save
+            }
+        } catch (IOException e) {
+            return false; // Removed since the save
+        }
+        SongDAO.updateLyricsOffset(lrcPath.toString(), ownWrite.offsetMillis);
+        return true;
+    }
+
+    private static long oldest(Map<Path, Long> pending) {
+        long oldest = Long.MAX_VALUE;
+        for (long time : pending.values()) {
+            oldest = Math.min(oldest, time);
+        }
+        return oldest;
+    }
+
+    private void closeWatchService() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                System.err.println("LyricsFileWatcher: Error closing watch service: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Size, modification time and offset of a file right after the application saved it. */
+    private static final class OwnWrite {
+        private final long size;
+        private final long modifiedMillis;
+        private final long offsetMillis;
+
+        private OwnWrite(long size, long modifiedMillis, long offsetMillis) {
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+            this.offsetMillis = offsetMillis;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package service;
+
+// --- JavaFX Imports ---
+import javafx.collections.ListChangeListener;
+
+// --- Model Imports ---
+import model.Song;
+
+// --- Util Imports ---
+import util.CharsetDetector;
+
+// --- Java IO and NIO Imports ---
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+
+// --- Java Util Imports ---
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Loads the lyrics of the songs about to play into a {@link LyricsCache} ahead of time, so that
+ * {@link LyricsService#loadLyricsForSong(Song)} finds them in memory at the song transition instead of
+ * parsing the file on the JavaFX Application Thread.
+ * <p>
+ * The prefetcher listens to the {@link QueueService} queue. Whenever it changes, the lyrics of the first
+ * {@code depth} songs (see {@link QueueService#peekNextSongs(int)}) that are not being loaded yet are loaded on
+ * virtual threads, and loads for songs that are no longer among them (removed from the queue, or moved back) are
+ * cancelled. The song taken from the head of the queue for playback is exempt, so its load is not thrown away
+ * just before it is needed.
+ * <p>
+ * Queue listeners run on the JavaFX Application Thread; the loads themselves never touch the UI.
+ * Supports SRS FR2.10 (Automatic song transition) and FR3.1 (Parse LRC files).
+ */
+public class LyricsPrefetcher {
+
+    /** Default number of upcoming songs whose lyrics are prefetched. */
+    public static final int DEFAULT_DEPTH = 3;
+
+    private final QueueService queueService;
+    private final LyricsCache lyricsCache;
+    private final int depth;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Future<?>> inFlight = new ConcurrentHashMap<>(); // Keyed by lyrics file path
+    private final ListChangeListener<Song> queueListener = this::onQueueChanged;
+
+    /**
+     * Constructs a prefetcher. Call {@link #start()} to begin listening to the queue.
+     *
+     * @param queueService The queue whose upcoming songs are prefetched.
+     * @param lyricsCache The cache receiving the loaded lyrics, typically {@link LyricsService#getLyricsCache()}.
+     * @param depth The number of upcoming songs to prefetch, at least 1.
+     * @throws IllegalArgumentException If {@code depth} is less than 1.
+     */
+    public LyricsPrefetcher(QueueService queueService, LyricsCache lyricsCache, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Prefetch depth must be at least 1: " + depth);
+        }
+        this.queueService = queueService;
+        this.lyricsCache = lyricsCache;
+        this.depth = depth;
+    }
+
+    /**
+     * Starts listening to the queue and prefetches the songs already in it.
+     */
+    public void start() {
+        queueService.getQueue().addListener(queueListener);
+        refresh(null);
+    }
+
+    /**
+     * Stops listening to the queue, cancels all pending loads and releases the worker threads.
+     * This should be called when the application shuts down.
+     */
+    public void dispose() {
+        queueService.getQueue().removeListener(queueListener);
+        executor.shutdownNow(); // Interrupts running loads
+        inFlight.clear();
+        System.out.println("LyricsPrefetcher: Disposed.");
+    }
+
+    /** @return The number of lyrics files currently being loaded. */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    // --- Internal ---
+
+    private void onQueueChanged(ListChangeListener.Change<? extends Song> change) {
+        String dequeuedPath = null;
+        while (change.next()) {
+            // QueueService.getNextSong(): exactly one song removed from the head, about to be played.
+            if (change.wasRemoved() && !change.wasAdded() && change.getFrom() == 0 && change.getRemovedSize() == 1) {
+                dequeuedPath = change.getRemoved().get(0).getLyricsFilePath();
+            }
+        }
+        refresh(dequeuedPath);
+    }
+
+    /**
+     * Starts loads for the upcoming songs and cancels the loads that are no longer wanted.
+     *
+     * @param keepPath The lyrics path of a song whose load must not be cancelled, or {@code null}.
+     */
+    private void refresh(String keepPath) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        List<Song> upcoming = queueService.peekNextSongs(depth);
+        Set<String> wanted = new HashSet<>();
+        for (Song song : upcoming) {
+            String path = song.getLyricsFilePath();
+            if (path != null && !path.isBlank() && wanted.add(path) && !inFlight.containsKey(path)) {
+                submit(path, song.getLyricsCharset());
+            }
+        }
+        for (Map.Entry<String, Future<?>> entry : inFlight.entrySet()) {
+            String path = entry.getKey();
+            if (!wanted.contains(path) && !path.equals(keepPath)) {
+                entry.getValue().cancel(true);
+                inFlight.remove(path, entry.getValue());
+                System.out.println("LyricsPrefetcher: Cancelled prefetch of '" + path + "'.");
+            }
+        }
+    }
+
+    private void submit(String path, String charsetName) {
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            load(path, charsetName);
+            return null;
+        }) {
+            @Override
+            protected void done() {
+                inFlight.remove(path, this);
+            }
+        };
+        inFlight.put(path, task);
+        executor.execute(task);
+    }
+
+    private void load(String path, String charsetName) {
+        try {
+            lyricsCache.prefetch(Paths.get(path), CharsetDetector.forNameOrNull(charsetName));
+        } catch (IOException | InvalidPathException e) {
+            if (!Thread.currentThread().isInterrupted()) { // An interrupted load was cancelled on purpose
+                System.err.println("LyricsPrefetcher: Could not prefetch '" + path + "': " + e.getMessage());
+            }
+        }
+    }
+}
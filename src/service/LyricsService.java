@@ -1,23 +1,44 @@
 package service;
 
 // --- Model Imports ---
+import model.LyricCursor;
 import model.LyricLine;
+import model.LyricWindow;
 import model.Song;
 import model.SongLyrics;
+import model.WordTimeline;
+
+// --- DAO Imports ---
+import dao.SongDAO;
 
 // --- Util Imports ---
+import util.CharsetDetector;
 import util.LrcParser;
+import util.LyricLineSink;
+import util.LyricsBinaryCache;
 
 // --- Java IO and NIO Imports ---
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 // --- Java Util Imports ---
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 // --- JavaFX Imports ---
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 
@@ -30,12 +51,15 @@ import javafx.beans.property.ReadOnlyObjectWrapper;
  * Key functionalities and SRS correlations:
  * <ul>
  *   <li><b>FR3.1 (Parse LRC File):</b> Leverages {@link LrcParser} to read LRC files, extracting
- *       both the lyric lines and any global offset defined in an {@code [offset:...]} tag.</li>
+ *       both the lyric lines and any global offset defined in an {@code [offset:...]} tag.
+ *       Parsed songs are kept in memory by a {@link LyricsCache}, and parsed files on disk by the
+ *       {@link LyricsBinaryCache}, so a song change usually skips the parse.</li>
  *   <li><b>FR3.2 (Parse Timestamps and Text):</b> Relies on {@link LrcParser} for the detailed
  *       parsing of individual timestamped lyric lines.</li>
  *   <li><b>FR3.4 (Display Synchronized Lyrics):</b> Provides the {@link #displayLinesProperty()} which
- *       emits a list of currently relevant lyric lines (previous, current, next, next+1)
- *       based on playback time and the effective offset, enabling synchronized display.</li>
+ *       emits a {@link LyricWindow} of currently relevant lyric lines (by default previous, current, next, next+1;
+ *       see {@link #setDisplayWindow(int, int)}) based on playback time and the effective offset,
+ *       enabling synchronized display.</li>
  *   <li><b>FR3.3 (Lyric Timing Adjustment):</b> While the initial offset is loaded here (from LRC file),
  *       the live, dynamic adjustment of this offset is typically managed by a controller (e.g., MainController)
  *       which then passes the {@code totalLiveOffsetFromController} to {@link #updateCurrentDisplayLines(long, long)}.
@@ -44,29 +68,54 @@ import javafx.beans.property.ReadOnlyObjectWrapper;
  */
 public class LyricsService {
 
+    /** Default number of lines shown before the active line. */
+    public static final int DEFAULT_LINES_BEFORE = 1;
+    /** Default number of lines shown after the active line. */
+    public static final int DEFAULT_LINES_AFTER = 2;
+    // Number of streamed lines shown before a cold file is fully parsed; later previews double it.
+    private static final int PREVIEW_FIRST_BATCH_LINES = 16;
+
     private Song currentSong;                   // The song whose lyrics are currently loaded.
     private SongLyrics currentLyricsHolder;     // Holds the parsed SongLyrics object (lines and original structure).
+    private LyricCursor currentLyricCursor;     // Remembers the active line between ticks; null when no lyrics are loaded.
+    // Playback interval [from, until) over which the published display lines stay valid for 'displayValidOffsetMs'.
+    // Updates inside it are skipped; an empty interval (from > until) forces the next update.
+    private long displayValidFromMs = Long.MAX_VALUE;
+    private long displayValidUntilMs = Long.MIN_VALUE;
+    private long displayValidOffsetMs;
+    private long lastDisplayPlaybackMs;         // Playback time of the last display update, for previews
+    private long lastDisplayOffsetMs;           // Live offset of the last display update, for previews
+    private LyricWindow[] displaySnapshots = new LyricWindow[0]; // Per active index + 1, built on load
+    private int publishedSnapshotIndex = NO_SNAPSHOT; // Active index of the published snapshot
+    private int linesBefore = DEFAULT_LINES_BEFORE;   // Window shape, see setDisplayWindow(int, int)
+    private int linesAfter = DEFAULT_LINES_AFTER;
+
+    // Marks that the published display lines are the empty list rather than a snapshot.
+    private static final int NO_SNAPSHOT = Integer.MIN_VALUE;
     private long initialLoadedOffsetMs = 0;     // Offset read from [offset:...] tag in the LRC file.
+    private Charset currentLyricsCharset;       // Encoding the current LRC file was decoded with.
+    private WordTimeline currentWordTimeline = WordTimeline.EMPTY; // Word timing of the current lines (enhanced LRC).
+    private final LyricsCache lyricsCache = new LyricsCache(); // Parsed lyrics of recently loaded songs
+    private final ExecutorService loadExecutor = Executors.newVirtualThreadPerTaskExecutor(); // Asynchronous loads
+    private CompletableFuture<Boolean> pendingLoad; // Asynchronous load in progress, null if none (FX thread only)
+    private volatile long loadGeneration;           // Incremented whenever a load is superseded (on the FX thread)
+    private final Set<String> storedCharsetPaths = new HashSet<>(); // Files whose detected charset was saved (FX thread only)
 
     // --- Observable Property for UI (FR3.4) ---
 
     /**
      * A read-only JavaFX property wrapper for the list of lyric lines to be displayed.
-     * This list is dynamically updated and typically contains four {@link LyricLine} objects:
-     * <ol>
-     *   <li>The lyric line immediately preceding the current one (or {@code null}).</li>
-     *   <li>The current, active lyric line (or {@code null}).</li>
-     *   <li>The lyric line immediately following the current one (or {@code null}).</li>
-     *   <li>The second lyric line following the current one (or {@code null}).</li>
-     * </ol>
-     * The list itself is unmodifiable. UI components should observe this property for updates.
+     * While lyrics are loaded, it holds a {@link LyricWindow}: {@link #getLinesBefore()} lines preceding the
+     * current one, the current, active lyric line, and {@link #getLinesAfter()} lines following it, each
+     * {@code null} where no such line exists. By default these are the previous, current, next and second next line.
+     * Otherwise it holds an empty list. The list itself is unmodifiable. UI components should observe this property for updates.
      */
     private final ReadOnlyObjectWrapper<List<LyricLine>> displayLinesWrapper =
             new ReadOnlyObjectWrapper<>(this, "displayLines", Collections.emptyList());
 
     /**
      * Provides public, read-only access to the observable property containing the list of
-     * lyric lines relevant to the current playback position (previous, current, next, and next+1).
+     * lyric lines relevant to the current playback position (by default previous, current, next, and next+1).
      * This directly supports FR3.4 by allowing UI components to bind to or listen for changes
      * in the displayed lyrics.
      *
@@ -108,12 +157,107 @@ public class LyricsService {
         return initialLoadedOffsetMs;
     }
 
+    /**
+     * Gets the character encoding the current song's LRC file was decoded with, so that writers
+     * (e.g., saving a new offset) can keep the file in its original encoding.
+     *
+     * @return The charset of the loaded lyrics file, or {@code null} if no lyrics are loaded or it is unknown.
+     */
+    public Charset getCurrentLyricsCharset() {
+        return currentLyricsCharset;
+    }
+
+    /**
+     * Gets the word-level timing of the current song's lyric lines, for karaoke-style highlighting.
+     * Lines are indexed like {@link SongLyrics#getLines()} of the loaded lyrics.
+     *
+     * @return The {@link WordTimeline} of the loaded lyrics; {@link WordTimeline#EMPTY} if none are loaded
+     *         or the file has no word tags.
+     */
+    public WordTimeline getCurrentWordTimeline() {
+        return currentWordTimeline;
+    }
+
+    /**
+     * Gets the in-memory cache of parsed lyrics used by {@link #loadLyricsForSong(Song)}, e.g. to report its
+     * hit rate or to adjust its budget.
+     *
+     * @return The {@link LyricsCache} of this service.
+     */
+    public LyricsCache getLyricsCache() {
+        return lyricsCache;
+    }
+
     // --- Service Methods ---
 
+    /**
+     * Makes the next display update locate the active line from scratch instead of continuing from the
+     * previous one. Intended to be called when playback seeks (see {@link PlayerService#setOnSeekHandler(OnSeekHandler)}).
+     * Has no effect if no lyrics are loaded.
+     */
+    public void resetLyricCursor() {
+        if (currentLyricCursor != null) {
+            currentLyricCursor.reset();
+        }
+        invalidateDisplayWindow();
+    }
+
+    /**
+     * Sets how many lines the display window shows around the active line, e.g. for big screens that show
+     * 8 to 10 lines. Takes effect immediately: the windows of the loaded song are rebuilt and, if a window
+     * was published, the window of the same active line is republished in the new shape.
+     * (Supports FR3.4)
+     *
+     * @param linesBefore The number of lines shown before the active line, at least 0.
+     * @param linesAfter The number of lines shown after the active line, at least 0.
+     * @throws IllegalArgumentException If either value is negative.
+     */
+    public void setDisplayWindow(int linesBefore, int linesAfter) {
+        if (linesBefore < 0 || linesAfter < 0) {
+            throw new IllegalArgumentException("Window sizes cannot be negative: " + linesBefore + " before, " + linesAfter + " after.");
+        }
+        if (linesBefore == this.linesBefore && linesAfter == this.linesAfter) {
+            return;
+        }
+        this.linesBefore = linesBefore;
+        this.linesAfter = linesAfter;
+        this.displaySnapshots = buildDisplaySnapshots(currentLyricsHolder, linesBefore, linesAfter);
+        if (publishedSnapshotIndex != NO_SNAPSHOT) {
+            displayLinesWrapper.set(displaySnapshots[publishedSnapshotIndex + 1]);
+        }
+    }
+
+    /** @return The number of lines shown before the active line. */
+    public int getLinesBefore() {
+        return linesBefore;
+    }
+
+    /** @return The number of lines shown after the active line. */
+    public int getLinesAfter() {
+        return linesAfter;
+    }
+
+    /**
+     * Returns the playback time at which the displayed lyric lines will next change, so a caller can
+     * schedule a single wakeup at that boundary instead of updating on every time tick.
+     * (Supports FR3.4, FR3.3)
+     *
+     * @param currentPlaybackMillis The current playback time of the song, in milliseconds.
+     * @param totalLiveOffset The current total effective offset, in milliseconds.
+     * @return The playback time in milliseconds at which the next line becomes active, or {@link Long#MAX_VALUE}
+     *         if no further change will happen (no lyrics loaded, or the last line is already active).
+     */
+    public long nextChangeAtMillis(long currentPlaybackMillis, long totalLiveOffset) {
+        if (currentLyricsHolder == null) {
+            return Long.MAX_VALUE;
+        }
+        return currentLyricsHolder.nextChangeAtMillis(currentPlaybackMillis, totalLiveOffset);
+    }
+
     /**
      * Loads the lyrics for the specified {@link Song}.
-     * If a song is provided, this method attempts to parse its associated LRC file using {@link LrcParser}.
-     * The parsed {@link LyricLine}s and the initial file offset are stored.
+     * If a song is provided, this method takes its parsed LRC file from the in-memory {@link LyricsCache}, which
+     * loads it from the {@link LyricsBinaryCache}, or parses it with {@link LrcParser}, when there is no fresh entry. The parsed {@link LyricLine}s and the initial file offset are stored.
      * <p>
      * Behavior details:
      * <ul>
@@ -124,6 +268,7 @@ public class LyricsService {
      *   <li>If parsing fails (e.g., {@link IOException}, {@link InvalidPathException}), an error is logged,
      *       and any previously loaded lyrics are cleared.</li>
      * </ul>
+     * The file is read on the calling thread; UI code should use {@link #loadLyricsForSongAsync(Song)} instead.
      * (Supports FR3.1, FR3.2 via {@link LrcParser})
      *
      * @param song The {@link Song} object for which lyrics should be loaded. May be {@code null} to clear lyrics.
@@ -148,7 +293,7 @@ public class LyricsService {
             return true;
         }
 
-        clearLyricsInternal(); // Reset state for new song
+        clearLyricsInternal(); // Reset state for new song (and supersede a pending asynchronous load)
         this.currentSong = song; // Update current song reference *before* attempting to load
         boolean success = false;
 
@@ -156,19 +301,13 @@ public class LyricsService {
         if (lyricsPath == null || lyricsPath.isBlank()) {
             System.err.println("LyricsService: No lyrics file path for '" + song.getTitle() + "'.");
             // If loading failed, state is cleared. MainController will get 0 as initial offset.
-            // updateCurrentDisplayLines(0,0); // Ensure display is cleared to an empty state - This will be handled by MainController
         } else {
             try {
-                // Delegate parsing to LrcParser
-                LrcParser.LrcParseResult parseResult = LrcParser.parseLyricsAndOffset(lyricsPath);
-                this.currentLyricsHolder = new SongLyrics(parseResult.getLines()); // Store only lines
-                this.initialLoadedOffsetMs = parseResult.getOffsetMillis();    // Store initial offset
-
-                System.out.println("LyricsService: Loaded " + this.currentLyricsHolder.getSize() +
-                                   " lines for '" + song.getTitle() +
-                                   "' (InitialFileOffset: " + this.initialLoadedOffsetMs + "ms).");
+                // Take the parsed lyrics from memory, or load the compiled cache entry / parse the file (single pass).
+                // The charset stored with the song, if any, spares the parser a detection pass.
+                Charset charsetHint = CharsetDetector.forNameOrNull(song.getLyricsCharset());
+                applyLoadedLyrics(song, lyricsPath, lyricsCache.getOrLoad(Paths.get(lyricsPath), charsetHint));
                 success = true;
-                // updateCurrentDisplayLines(0, initialLoadedOffsetMs); // Initialize display for time 0 - This will be handled by MainController
             } catch (IOException | InvalidPathException e) {
                 System.err.println("LyricsService: Error parsing lyrics for '" + lyricsPath + "': " + e.getMessage());
                 clearLyricsInternal(); // Ensure state is null on error
@@ -179,10 +318,223 @@ public class LyricsService {
             }
         }
         // If loading failed, state is cleared. MainController will get 0 as initial offset.
-        // updateCurrentDisplayLines(0,0); // Clear display - This will be handled by MainController
         return success;
     }
 
+    /**
+     * Loads the lyrics for the specified {@link Song} like {@link #loadLyricsForSong(Song)}, but reads and parses
+     * the LRC file on a background (virtual) thread, so the JavaFX Application Thread never waits for the disk.
+     * Must be called on the JavaFX Application Thread.
+     * <p>
+     * The lyrics of the previous song are cleared immediately. When the file has been loaded, the new lyrics and
+     * their initial offset are stored on the JavaFX Application Thread, and the returned future completes there,
+     * so dependent actions (e.g., applying the offset and calling {@link #updateCurrentDisplayLines(long, long)})
+     * may update the UI directly. Songs found in the {@link LyricsCache} (e.g., prefetched from the queue) are
+     * still stored in a later pulse, but without any disk access.
+     * <p>
+     * A file that is neither cached nor compiled by the {@link LyricsBinaryCache} is parsed as a stream (see
+     * {@link LrcParser#parseDocument(String, int, Charset, LyricLineSink)}), and its first lines are shown while the
+     * rest is still being read (see {@link #previewSink(long)}). The future completes once the full lyrics, built
+     * by the same pass, are stored.
+     * <p>
+     * A later call to this method, to {@link #loadLyricsForSong(Song)} or to {@link #clearLyrics()} supersedes a
+     * pending load: its future is cancelled, and its result, if the file is still being read, is discarded.
+     * (Supports FR3.1, FR3.2 via {@link LrcParser})
+     *
+     * @param song The {@link Song} object for which lyrics should be loaded. May be {@code null} to clear lyrics.
+     * @return A future completing with {@code true} once lyrics are loaded (or, for {@code null}, cleared), or with
+     *         {@code false} if loading failed; cancelled if the load was superseded. Already complete when no disk
+     *         access is needed (clearing, or the same song already loaded).
+     */
+    public CompletableFuture<Boolean> loadLyricsForSongAsync(Song song) {
+        if (song != null && song.equals(this.currentSong) && pendingLoad != null && !pendingLoad.isDone()) {
+            return pendingLoad; // Already loading this song (a preview of its lines may be shown)
+        }
+        if (song == null || (song.equals(this.currentSong) && this.currentLyricsHolder != null)) {
+            return CompletableFuture.completedFuture(loadLyricsForSong(song)); // Nothing to read
+        }
+
+        clearLyricsInternal(); // Reset state for new song (and supersede a pending asynchronous load)
+        this.currentSong = song;
+        String lyricsPath = song.getLyricsFilePath();
+        if (lyricsPath == null || lyricsPath.isBlank()) {
+            System.err.println("LyricsService: No lyrics file path for '" + song.getTitle() + "'.");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return startAsyncLoad(song, lyricsPath);
+    }
+
+    /**
+     * Reads the lyrics of the current song again, e.g. after its LRC file was changed on disk, without clearing the
+     * display in the meantime: the current lines stay shown until the new ones are stored. Works like
+     * {@link #loadLyricsForSongAsync(Song)} otherwise; the live offset is not affected, since it is managed by the
+     * caller, while {@link #getInitialLoadedOffsetMs()} reflects the file's new {@code [offset:]} tag.
+     * Must be called on the JavaFX Application Thread.
+     * (Supports FR3.1)
+     *
+     * @return A future completing on the JavaFX Application Thread with {@code true} once the lyrics are reloaded,
+     *         or with {@code false} if no song is current or loading failed; cancelled if superseded.
+     */
+    public CompletableFuture<Boolean> reloadCurrentLyricsAsync() {
+        Song song = this.currentSong;
+        String lyricsPath = (song != null) ? song.getLyricsFilePath() : null;
+        if (lyricsPath == null || lyricsPath.isBlank()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        cancelPendingLoad(); // Keeps the current lines until the new ones are applied
+        return startAsyncLoad(song, lyricsPath);
+    }
+
+    /**
+     * Reads the lyrics of {@code song} on the load executor and stores them on the JavaFX Application Thread,
+     * unless the load is superseded in the meantime. {@code song} must already be the current song.
+     * A file that has to be parsed from text previews its lines while it is read.
+     */
+    private CompletableFuture<Boolean> startAsyncLoad(Song song, String lyricsPath) {
+        long generation = loadGeneration;
+        Charset charsetHint = CharsetDetector.forNameOrNull(song.getLyricsCharset());
+        CompletableFuture<Boolean> load = CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        return lyricsCache.getOrLoad(Paths.get(lyricsPath), charsetHint, previewSink(generation));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, loadExecutor)
+                .handleAsync((entry, error) -> {
+                    if (generation != loadGeneration) {
+                        return false; // Superseded while the file was being read; the future is already cancelled
+                    }
+                    pendingLoad = null;
+                    if (error != null) {
+                        Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+                        System.err.println("LyricsService: Error parsing lyrics for '" + lyricsPath + "': " + cause.getMessage());
+                        clearLyricsInternal();
+                        return false;
+                    }
+                    applyLoadedLyrics(song, lyricsPath, entry);
+                    return true;
+                }, Platform::runLater);
+        pendingLoad = load;
+        return load;
+    }
+
+    /**
+     * Creates the sink of a load that parses a cold file from text: it hands the lines received so far to the
+     * JavaFX Application Thread each time their number doubles, starting at {@link #PREVIEW_FIRST_BATCH_LINES},
+     * so the first lines of a long file or a slow disk are shown before the parse completes. Called on the load
+     * executor; once the load is superseded, the remaining lines are no longer collected.
+     *
+     * @param generation The load generation the previews belong to.
+     * @return The sink to pass to {@link LyricsCache#getOrLoad(Path, Charset, LyricLineSink)}.
+     */
+    private LyricLineSink previewSink(long generation) {
+        List<LyricLine> received = new ArrayList<>();
+        return new LyricLineSink() {
+            private int nextPreviewSize = PREVIEW_FIRST_BATCH_LINES;
+            private boolean sorted = true; // False once a line arrived behind a later one
+
+            @Override
+            public void onLine(LyricLine line) {
+                if (generation != loadGeneration) {
+                    return; // Superseded: the parse only completes for the cache
+                }
+                if (!received.isEmpty() && line.getTimestampMillis() < received.get(received.size() - 1).getTimestampMillis()) {
+                    sorted = false;
+                }
+                received.add(line);
+                if (received.size() == nextPreviewSize) {
+                    nextPreviewSize *= 2;
+                    List<LyricLine> preview = new ArrayList<>(received);
+                    if (!sorted) {
+                        preview.sort(Comparator.comparingLong(LyricLine::getTimestampMillis));
+                    }
+                    Platform.runLater(() -> applyPreviewLyrics(generation, preview));
+                }
+            }
+        };
+    }
+
+    /**
+     * Shows the first lines of a file still being loaded, and republishes the display window at the playback time
+     * and live offset of the last {@link #updateCurrentDisplayLines(long, long)} call, so the next tick keeps the
+     * same window. The file's {@code [offset:]} tag only takes effect once the caller applies it after the load.
+     * Called on the JavaFX Application Thread; ignored once the load was superseded.
+     * The initial offset, charset and word timing are only stored with the full lyrics.
+     *
+     * @param generation The load generation the preview belongs to.
+     * @param lines The lines received so far, sorted by timestamp.
+     */
+    private void applyPreviewLyrics(long generation, List<LyricLine> lines) {
+        if (generation != loadGeneration || pendingLoad == null) {
+            return; // Superseded, or the full lyrics are already stored
+        }
+        this.currentLyricsHolder = new SongLyrics(lines);
+        this.currentLyricCursor = currentLyricsHolder.newCursor();
+        this.displaySnapshots = buildDisplaySnapshots(currentLyricsHolder, linesBefore, linesAfter);
+        this.publishedSnapshotIndex = NO_SNAPSHOT; // Windows of the previous preview are stale
+        this.currentWordTimeline = WordTimeline.EMPTY; // A reload may still hold the timing of the old lines
+        invalidateDisplayWindow();
+        updateCurrentDisplayLines(lastDisplayPlaybackMs, lastDisplayOffsetMs);
+    }
+
+    /**
+     * Stores loaded lyrics as the current ones. Called on the JavaFX Application Thread.
+     *
+     * @param song The song the lyrics belong to, already set as the current song.
+     * @param lyricsPath The path of its LRC file, for logging.
+     * @param entry The loaded lyrics.
+     */
+    private void applyLoadedLyrics(Song song, String lyricsPath, LyricsCache.Entry entry) {
+        this.currentLyricsHolder = entry.getLyrics();
+        this.currentLyricCursor = currentLyricsHolder.newCursor();
+        this.displaySnapshots = buildDisplaySnapshots(currentLyricsHolder, linesBefore, linesAfter);
+        this.publishedSnapshotIndex = NO_SNAPSHOT; // Snapshots of the previous song are stale
+        invalidateDisplayWindow();
+        this.initialLoadedOffsetMs = entry.getOffsetMillis();          // Store initial offset
+        this.currentLyricsCharset = entry.getCharset();
+        this.currentWordTimeline = entry.getWordTimeline();
+        if (CharsetDetector.forNameOrNull(song.getLyricsCharset()) == null && entry.getCharset() != null) {
+            storeDetectedCharset(lyricsPath, entry.getCharset());
+        }
+
+        // The pool summary reports the deduplication of the load that filled the cache entry (FR3.1).
+        String textSharing = (entry.getTextPoolSummary() != null)
+                ? entry.getTextPoolSummary()
+                : this.currentLyricsHolder.getDistinctTextCount() + " distinct texts";
+        System.out.println("LyricsService: Loaded " + this.currentLyricsHolder.getSize() +
+                           " lines (" + textSharing + ")" +
+                           " for '" + song.getTitle() +
+                           "' (InitialFileOffset: " + this.initialLoadedOffsetMs + "ms).");
+        if (!entry.getDiagnostics().isEmpty()) {
+            System.err.println("LyricsService: Skipped malformed tags in '" + lyricsPath + "': " + entry.getDiagnostics());
+        }
+    }
+
+    /**
+     * Saves the charset detected by a full load to the song's database row, once per file and session, so later
+     * loads and prefetches of the song decode it directly. The header scan of the population leaves the charset
+     * unknown for files whose metadata is plain ASCII. The row is updated on the load executor.
+     *
+     * @param lyricsPath The path of the LRC file, as stored with the song.
+     * @param charset The encoding the file was decoded with.
+     */
+    private void storeDetectedCharset(String lyricsPath, Charset charset) {
+        if (storedCharsetPaths.add(lyricsPath)) {
+            loadExecutor.execute(() -> SongDAO.updateLyricsCharset(lyricsPath, charset.name()));
+        }
+    }
+
+    /** Supersedes the pending asynchronous load, if any, so its result is discarded. */
+    private void cancelPendingLoad() {
+        loadGeneration++;
+        if (pendingLoad != null) {
+            pendingLoad.cancel(false);
+            pendingLoad = null;
+        }
+    }
+
     /**
      * Updates the observable list of display lines (previous, current, next, next+1)
      * based on the provided current playback time and the total live offset (which includes
@@ -190,7 +542,8 @@ public class LyricsService {
      * <p>
      * This method is typically called by a controller (e.g., {@code MainController}) in response to
      * time updates from the {@link PlayerService} or when the live offset changes.
-     * It uses the {@link SongLyrics#getIndexAtTime(long, long)} method to determine the current line.
+     * It uses the {@link LyricCursor} of the loaded lyrics to determine the current line, which costs O(1)
+     * on regular playback ticks and falls back to {@link SongLyrics#getIndexAtTime(long, long)} after jumps.
      * (Supports FR3.4, FR3.3)
      *
      * @param currentPlaybackMillis The current playback time of the song, in milliseconds.
@@ -199,41 +552,74 @@ public class LyricsService {
      *                                      the initial file offset and any live user adjustments.
      */
     public void updateCurrentDisplayLines(long currentPlaybackMillis, long totalLiveOffsetFromController) {
-        List<LyricLine> newDisplayLines;
-
-        if (currentLyricsHolder == null || currentLyricsHolder.isEmpty()) {
+        lastDisplayPlaybackMs = currentPlaybackMillis;
+        lastDisplayOffsetMs = totalLiveOffsetFromController;
+        // Between two line boundaries the display cannot change: skip the tick without any work.
+        if (totalLiveOffsetFromController == displayValidOffsetMs
+                && currentPlaybackMillis >= displayValidFromMs && currentPlaybackMillis < displayValidUntilMs) {
+            return;
+        }
+        if (displaySnapshots.length == 0) {
             // If no lyrics are loaded or if the loaded lyrics are empty,
             // the display list should be empty.
-            newDisplayLines = Collections.emptyList();
-        } else {
-            // Pass the totalLiveOffsetFromController to SongLyrics methods
-            // Get the index of the lyric line that is currently active
-            // (i.e., the last line whose effective timestamp is <= currentPlaybackMillis)
-            int currentIndex = currentLyricsHolder.getIndexAtTime(currentPlaybackMillis, totalLiveOffsetFromController);
-            List<LyricLine> allLines = currentLyricsHolder.getLines();
-
-            // Prepare the list of lines to show (previous, current, next1, next2)
-            // This list will always have 4 conceptual slots, filled with LyricLine objects or null.
-            List<LyricLine> linesToShow = new ArrayList<>(4); // Initialize with capacity 4
-
-            linesToShow.add(getLineAtIndexSafe(allLines, currentIndex - 1)); // Previous line
-            linesToShow.add(getLineAtIndexSafe(allLines, currentIndex));     // Current line
-            linesToShow.add(getLineAtIndexSafe(allLines, currentIndex + 1)); // Next line
-            linesToShow.add(getLineAtIndexSafe(allLines, currentIndex + 2)); // Second next line
-
-            // Make the list unmodifiable before setting it to the property
-            newDisplayLines = Collections.unmodifiableList(linesToShow);
+            publishDisplayLines(Collections.emptyList(), NO_SNAPSHOT);
+            return;
+        }
+
+        // Get the index of the lyric line that is currently active
+        // (i.e., the last line whose effective timestamp is <= currentPlaybackMillis)
+        int currentIndex = currentLyricCursor.indexAt(currentPlaybackMillis, totalLiveOffsetFromController);
+        displayValidFromMs = (currentIndex >= 0)
+                ? currentLyricsHolder.getTimestampAt(currentIndex) + totalLiveOffsetFromController
+                : Long.MIN_VALUE;
+        displayValidUntilMs = currentLyricsHolder.nextChangeAfterIndex(currentIndex, totalLiveOffsetFromController);
+        displayValidOffsetMs = totalLiveOffsetFromController;
+
+        // The window for each index was built on load: publish it if the index changed, without allocating.
+        publishDisplayLines(displaySnapshots[currentIndex + 1], currentIndex);
+    }
+
+    /**
+     * Sets the display lines property, unless the snapshot for the same line index is already published.
+     *
+     * @param lines The snapshot to publish.
+     * @param snapshotIndex The active line index the snapshot belongs to, or {@link #NO_SNAPSHOT} for the empty list.
+     */
+    private void publishDisplayLines(List<LyricLine> lines, int snapshotIndex) {
+        if (snapshotIndex != publishedSnapshotIndex) {
+            publishedSnapshotIndex = snapshotIndex;
+            displayLinesWrapper.set(lines);
         }
+    }
 
-        // Only update the observable property if the content of the list has actually changed.
-        // This prevents unnecessary UI refreshes. List.equals() performs an element-wise
-        // comparison, relying on LyricLine.equals(), and correctly handles nulls within the lists.
-        if (!newDisplayLines.equals(displayLinesWrapper.get())) {
-            displayLinesWrapper.set(newDisplayLines);
-            // For debugging:
-            // System.out.println("LyricsService: Updated display lines at " + currentPlaybackMillis + "ms with offset " + totalLiveOffsetFromController + "ms. Current index: " + (currentLyricsHolder != null ? currentLyricsHolder.getIndexAtTime(currentPlaybackMillis, totalLiveOffsetFromController) : -1) );
-            // newDisplayLines.forEach(line -> System.out.println("  " + (line != null ? line.getText() : "null")));
+    /**
+     * Builds the display window of every possible active index of the loaded song, once per load or window change.
+     * The window at position {@code i + 1} surrounds line {@code i}; position 0 is the window before the first line.
+     * All windows read from the song's {@link SongLyrics}, so each costs one small object whatever its size.
+     *
+     * @param lyrics The lyrics of the loaded song, or {@code null} if none are loaded.
+     * @param before The number of lines shown before the active line.
+     * @param after The number of lines shown after the active line.
+     * @return The windows, or an empty array if there are no lines.
+     */
+    private static LyricWindow[] buildDisplaySnapshots(SongLyrics lyrics, int before, int after) {
+        if (lyrics == null || lyrics.getSize() == 0) {
+            return new LyricWindow[0];
+        }
+        LyricWindow[] snapshots = new LyricWindow[lyrics.getSize() + 1];
+        for (int index = -1; index < lyrics.getSize(); index++) {
+            snapshots[index + 1] = new LyricWindow(lyrics, index, before, after);
         }
+        return snapshots;
+    }
+
+    /**
+     * Forgets the playback interval over which the current display lines are known to be valid,
+     * so the next {@link #updateCurrentDisplayLines(long, long)} recomputes them.
+     */
+    private void invalidateDisplayWindow() {
+        displayValidFromMs = Long.MAX_VALUE;
+        displayValidUntilMs = Long.MIN_VALUE;
     }
 
     /**
@@ -253,39 +639,31 @@ public class LyricsService {
     /**
      * Internal helper to reset lyrics-related state:
      * <ul>
+     *      <li>Supersedes a pending {@link #loadLyricsForSongAsync(Song)}.</li>
      *      <li>Sets {@code currentSong} to null.</li>
-     *      <li>Sets {@code currentLyricsHolder} to null.</li>
-     *      <li>Resets {@code initialLoadedOffsetMs} to 0.</li>
+     *      <li>Sets {@code currentLyricsHolder} and {@code currentLyricCursor} to null.</li>
+     *      <li>Resets {@code initialLoadedOffsetMs} to 0, {@code currentLyricsCharset} to null
+     *          and {@code currentWordTimeline} to empty.</li>
      *      <li>Clears the {@code displayLinesWrapper} by setting it to an empty list if it's not already empty.</li>
      * </ul>
      */
     private void clearLyricsInternal() {
+        cancelPendingLoad();
         this.currentSong = null;
         this.currentLyricsHolder = null;
+        this.currentLyricCursor = null;
+        this.displaySnapshots = new LyricWindow[0];
+        invalidateDisplayWindow();
         this.initialLoadedOffsetMs = 0; // Reset the initial offset
+        this.currentLyricsCharset = null;
+        this.currentWordTimeline = WordTimeline.EMPTY;
         // Update the observable property to an empty list to clear the UI
+        this.publishedSnapshotIndex = NO_SNAPSHOT;
         if (!this.displayLinesWrapper.get().isEmpty()) { // Only set if not already empty
             this.displayLinesWrapper.set(Collections.emptyList());
         }
     }
 
-    /**
-     * Safely retrieves a {@link LyricLine} from a list by its index.
-     * Returns {@code null} if the list is {@code null}, the index is out of bounds
-     * (less than 0 or greater than or equal to list size).
-     *
-     * @param lines The list of {@link LyricLine} objects from which to retrieve an element.
-     * @param index The desired index of the element.
-     * @return The {@link LyricLine} at the specified index, or {@code null} if the index is invalid
-     *         or the list is {@code null}.
-     */
-    private LyricLine getLineAtIndexSafe(List<LyricLine> lines, int index) {
-        if (lines != null && index >= 0 && index < lines.size()) {
-            return lines.get(index); // LyricLine objects themselves can be null if list allows
-        }
-        return null; // Index is invalid or list is null
-    }
-
     /**
      * Gets the currently loaded {@link SongLyrics} object, which contains the parsed lyric lines.
      * This method is primarily intended for internal use within the service package or for testing purposes.
@@ -296,4 +674,4 @@ public class LyricsService {
     public SongLyrics getCurrentLyricsObject() { // Renamed from getCurrentLyrics to avoid conflict if SongLyrics was the direct type
         return currentLyricsHolder;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package service;
+
+import model.Song;
+
+/**
+ * A functional interface for looking up the song that will play after the current one.
+ * This interface is intended to be implemented by the class that owns the song queue
+ * (e.g., {@link controller.MainController} using {@link QueueService#peekNextSongs(int)}).
+ * The single method {@link #peekNextSong()} is invoked by {@link PlayerService} shortly before the current song
+ * ends, so that it can prepare the next song's media ahead of the transition.
+ *
+ * <p>SRS: This supports FR2.10 (Automatic Song Transition).
+ */
+@FunctionalInterface
+public interface NextSongSupplier {
+    /**
+     * Returns the song that will play next, without removing it from the queue.
+     *
+     * @return The next song, or {@code null} if none is queued.
+     */
+    Song peekNextSong();
+}
@@ -0,0 +1,22 @@
+package service;
+
+import java.nio.file.Path;
+
+/**
+ * A functional interface for reacting to an LRC file that changed on disk while the application runs.
+ * This interface is intended to be implemented by classes that show data read from lyrics files
+ * (e.g., the lyrics of the current song, or the song library) and must refresh it.
+ * The single method {@link #handle(Path)} is invoked by {@link LyricsFileWatcher} on the JavaFX Application Thread,
+ * after the cached lyrics of the file were invalidated and its song's database row was updated.
+ *
+ * <p>SRS: This supports FR2.1 (Load song metadata from database) and FR3.1 (Parse LRC files).
+ */
+@FunctionalInterface
+public interface OnLyricsFileChangedHandler {
+    /**
+     * Called once per changed file, after the changes of a save have settled.
+     *
+     * @param lrcPath The absolute path of the .lrc file that was created, modified or deleted.
+     */
+    void handle(Path lrcPath);
+}
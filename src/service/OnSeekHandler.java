@@ -0,0 +1,20 @@
+package service;
+
+/**
+ * A functional interface for reacting to a seek in the current media.
+ * This interface is intended to be implemented by classes that keep state derived from the
+ * playback position (e.g., the lyric cursor of {@link LyricsService}) and must drop it when
+ * the position jumps, rather than when it advances normally.
+ * The single method {@link #handle(long)} is invoked by {@link PlayerService} whenever a seek is applied.
+ *
+ * <p>SRS: This supports FR1.7 (Seek) together with FR3.4 (Display synchronized lyrics).
+ */
+@FunctionalInterface
+public interface OnSeekHandler {
+    /**
+     * Called when a seek has been applied to the media player.
+     *
+     * @param millis The position seeked to, in milliseconds.
+     */
+    void handle(long millis);
+}
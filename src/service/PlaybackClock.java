@@ -0,0 +1,137 @@
+package service;
+
+/**
+ * A high-resolution estimate of the playback position, for timing that must be finer than the coarse and irregular
+ * updates of {@code MediaPlayer.currentTimeProperty()} (e.g., switching lyric lines, or highlighting words).
+ * <p>
+ * The clock is anchored on each media time sample and extrapolates from it with {@link System#nanoTime()} and the
+ * playback rate while playing. Samples normally disagree slightly with the extrapolation (the media pipeline reports
+ * time in steps); such drift is corrected gradually, by running the clock at most {@link #SLEW_FRACTION} faster or
+ * slower, so that the estimate never jumps and only moves backwards on a seek. A sample further than
+ * {@link #SNAP_THRESHOLD_MILLIS} from the estimate (e.g., after a stall) re-anchors the clock at once. When no sample
+ * arrives, extrapolation stops {@link #MAX_EXTRAPOLATION_MILLIS} past the anchor, so a stalled player is not overrun.
+ * While paused or stopped, the clock holds the last position.
+ * <p>
+ * {@link PlayerService} feeds the clock from its MediaPlayer. Instances are thread-safe, since samples arrive on
+ * media threads while the FX thread reads the estimate.
+ * Supports SRS FR1.6 (playback time information) and FR3.4 (Display synchronized lyrics).
+ */
+public class PlaybackClock {
+
+    /** Largest disagreement between a sample and the estimate corrected gradually, in milliseconds. */
+    public static final long SNAP_THRESHOLD_MILLIS = 200;
+    /** Maximum rate of drift correction, as a fraction of the elapsed playback time. */
+    public static final double SLEW_FRACTION = 0.1;
+    /** Longest extrapolation beyond the anchor without a new sample, in milliseconds of media time. */
+    public static final long MAX_EXTRAPOLATION_MILLIS = 1_000;
+
+    private double anchorMillis;     // Media position at 'anchorNanos'
+    private long anchorNanos = System.nanoTime();
+    private double correctionMillis; // Drift still to be corrected, positive if the clock is behind the media
+    private double rate = 1.0;
+    private boolean running;
+    private long snapCount;
+
+    /**
+     * Returns the estimated playback position.
+     *
+     * @return The position in milliseconds.
+     */
+    public synchronized long currentTimeMillis() {
+        return Math.round(estimateAt(System.nanoTime()));
+    }
+
+    /**
+     * Anchors the clock on a position reported by the media player. While playing, small disagreements are
+     * corrected gradually; larger ones, and any sample while paused or stopped, re-anchor the clock.
+     *
+     * @param mediaMillis The reported position in milliseconds.
+     */
+    public synchronized void sample(long mediaMillis) {
+        long now = System.nanoTime();
+        if (!running) {
+            anchor(mediaMillis, now);
+            return;
+        }
+        double estimate = estimateAt(now);
+        double error = mediaMillis - estimate;
+        if (Math.abs(error) > SNAP_THRESHOLD_MILLIS) {
+            anchor(mediaMillis, now);
+            snapCount++;
+        } else {
+            anchorMillis = estimate; // Continue from the current estimate, without a jump
+            anchorNanos = now;
+            correctionMillis = error;
+        }
+    }
+
+    /**
+     * Moves the clock to a new position at once, e.g. after a seek.
+     *
+     * @param mediaMillis The new position in milliseconds.
+     */
+    public synchronized void seek(long mediaMillis) {
+        anchor(mediaMillis, System.nanoTime());
+    }
+
+    /**
+     * Starts or stops extrapolation, e.g. when playback starts or pauses. Stopping holds the current estimate.
+     *
+     * @param running {@code true} while the media is playing.
+     */
+    public synchronized void setRunning(boolean running) {
+        if (running == this.running) {
+            return;
+        }
+        long now = System.nanoTime();
+        anchor(estimateAt(now), now);
+        this.running = running;
+    }
+
+    /**
+     * Sets the playback rate used for extrapolation.
+     *
+     * @param rate The rate, e.g. 1.0 for normal speed; must be positive.
+     * @throws IllegalArgumentException If {@code rate} is not positive.
+     */
+    public synchronized void setRate(double rate) {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("Playback rate must be positive: " + rate);
+        }
+        long now = System.nanoTime();
+        anchor(estimateAt(now), now); // Remaining drift is measured again by the next sample
+        this.rate = rate;
+    }
+
+    /** Stops the clock at position 0, e.g. when no media is loaded. */
+    public synchronized void reset() {
+        running = false;
+        anchor(0, System.nanoTime());
+    }
+
+    /** @return The playback rate used for extrapolation, e.g. 1.0 for normal speed. */
+    public synchronized double getRate() { return rate; }
+
+    /** @return {@code true} if the clock is extrapolating (the media is playing). */
+    public synchronized boolean isRunning() { return running; }
+
+    /** @return The number of samples too far from the estimate to be corrected gradually. */
+    public synchronized long getSnapCount() { return snapCount; }
+
+    // --- Internal ---
+
+    private void anchor(double mediaMillis, long nanos) {
+        anchorMillis = mediaMillis;
+        anchorNanos = nanos;
+        correctionMillis = 0;
+    }
+
+    private double estimateAt(long nanos) {
+        if (!running) {
+            return anchorMillis;
+        }
+        double elapsed = Math.min((nanos - anchorNanos) / 1_000_000.0 * rate, MAX_EXTRAPOLATION_MILLIS);
+        double maxSlew = elapsed * SLEW_FRACTION;
+        return anchorMillis + elapsed + Math.max(-maxSlew, Math.min(maxSlew, correctionMillis));
+    }
+}
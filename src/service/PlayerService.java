@@ -26,13 +26,30 @@ import java.io.IOException;
  * and the current song.
  * Includes logic for auto-playing a song once it's ready after loading.
  * Abstracts low-level JavaFX media handling from controllers.
+ * <p>
+ * To keep song transitions nearly gapless (FR2.10), the service pre-rolls the next song: during the last
+ * {@link #getPrerollMillis() pre-roll window} of the current song, it asks its {@link NextSongSupplier} for the
+ * song that will play next and creates and readies a second MediaPlayer for it. When that song is then loaded
+ * (at end of media or on a skip), the prepared player is swapped in instead of building and readying a new one.
+ * <p>
+ * Besides the coarse {@link #currentTimeProperty()}, the service keeps a {@link PlaybackClock} that interpolates
+ * the playback position between MediaPlayer time updates, for timing that must be precise (e.g., lyric lines).
  */
 public class PlayerService {
 
-    private MediaPlayer mediaPlayer;
+    /** Default length of the pre-roll window before the end of the current song, in milliseconds. */
+    public static final long DEFAULT_PREROLL_MILLIS = 5_000;
+
+    private volatile MediaPlayer mediaPlayer; // Read by the listeners on media threads
+    private MediaPlayer preparedPlayer; // Pre-rolled player for 'preparedSong', null if none or if preparing failed
+    private Song preparedSong; // Song last pre-rolled; kept after a failure so it is not retried on every time tick
+    private long prerollMillis = DEFAULT_PREROLL_MILLIS;
+    private NextSongSupplier nextSongSupplier; // Supplies the song to pre-roll
     private boolean playWhenReady = false; // Flag to manage auto-play after loading
     private Long pendingSeekMillis = null; // Stores a seek request if made before player is ready
     private OnEndOfMediaHandler onEndOfMediaHandler; // Callback for when media ends
+    private OnSeekHandler onSeekHandler; // Callback for when a seek is applied
+    private final PlaybackClock playbackClock = new PlaybackClock(); // Interpolated position of 'mediaPlayer'
 
     // --- Observable Properties ---
     // Wraps the MediaPlayer status, providing a read-only property.
@@ -51,6 +68,20 @@ public class PlayerService {
     private final ReadOnlyObjectWrapper<Song> currentSongWrapper =
             new ReadOnlyObjectWrapper<>(this, "currentSong", null);
 
+    // --- FX Thread Dispatch ---
+    // MediaPlayer reports status, time and duration from its own threads; only the latest value of each
+    // reaches the FX thread, instead of one Platform.runLater per change.
+    private final FxCoalescingDispatcher updateDispatcher = new FxCoalescingDispatcher();
+    private final FxCoalescingDispatcher.Slot<MediaPlayer.Status> statusSlot =
+            updateDispatcher.newSlot("status", status -> statusWrapper.set(status));
+    private final FxCoalescingDispatcher.Slot<Long> currentTimeSlot =
+            updateDispatcher.newSlot("currentTime", millis -> {
+                currentTimeMillisWrapper.set(millis);
+                prerollIfDue();
+            });
+    private final FxCoalescingDispatcher.Slot<Long> totalDurationSlot =
+            updateDispatcher.newSlot("totalDuration", millis -> totalDurationMillisWrapper.set(millis));
+
 
     // --- Public Read-Only Property Accessors ---
 
@@ -113,6 +144,22 @@ public class PlayerService {
         return currentSongWrapper.get();
     }
 
+    /**
+     * @return The clock interpolating the playback position between time updates; read it when a timer scheduled
+     *         for a known position fires (e.g., the next lyric line change) for precise timing.
+     * <p>Supports FR3.4 by timing lyric changes more precisely than {@link #currentTimeProperty()}.
+     */
+    public PlaybackClock getPlaybackClock() {
+        return playbackClock;
+    }
+
+    /**
+     * @return The dispatcher delivering MediaPlayer updates to the FX thread, e.g. to report its dropped updates.
+     */
+    public FxCoalescingDispatcher getUpdateDispatcher() {
+        return updateDispatcher;
+    }
+
     // --- Public Service Methods ---
 
     /**
@@ -123,9 +170,48 @@ public class PlayerService {
         this.onEndOfMediaHandler = handler;
     }
 
+    /**
+     * Sets a handler to be called whenever a seek is applied, including a deferred seek applied once the media is ready.
+     * @param handler The handler to execute, or null to remove it.
+     */
+    public void setOnSeekHandler(OnSeekHandler handler) {
+        this.onSeekHandler = handler;
+    }
+
+    /**
+     * Sets the supplier of the song to pre-roll near the end of the current song.
+     * @param supplier The supplier, or null to disable pre-rolling.
+     */
+    public void setNextSongSupplier(NextSongSupplier supplier) {
+        this.nextSongSupplier = supplier;
+    }
+
+    /**
+     * Sets how long before the end of the current song the next song is pre-rolled.
+     * @param prerollMillis The length of the pre-roll window in milliseconds; 0 disables pre-rolling.
+     * @throws IllegalArgumentException If {@code prerollMillis} is negative.
+     */
+    public void setPrerollMillis(long prerollMillis) {
+        if (prerollMillis < 0) {
+            throw new IllegalArgumentException("Pre-roll window cannot be negative: " + prerollMillis);
+        }
+        this.prerollMillis = prerollMillis;
+        if (prerollMillis == 0) {
+            disposePreparedPlayer();
+        }
+    }
+
+    /**
+     * @return The length of the pre-roll window in milliseconds; 0 if pre-rolling is disabled.
+     */
+    public long getPrerollMillis() {
+        return prerollMillis;
+    }
+
     /**
      * Loads the audio file from the given Song's path and optionally prepares it
      * for playback upon readiness. Disposes of any existing MediaPlayer.
+     * If the song was pre-rolled, its prepared MediaPlayer is used, so a ready song starts playing immediately.
      * Updates the currentSongProperty upon successful loading initiation.
      * <p>SRS: FR1.1 (enables playing audio by loading the track).
      *
@@ -134,6 +220,7 @@ public class PlayerService {
      * @return true if loading was successfully initiated, false otherwise (e.g., invalid path, immediate error).
      */
     public boolean loadSong(Song song, boolean startPlayback) {
+        MediaPlayer prepared = takePreparedPlayer(song); // Pre-rolled player for this song, if any
         disposePlayer(); // Clean up previous player and reset state (including playWhenReady)
 
         if (song == null || song.getAudioFilePath() == null || song.getAudioFilePath().isBlank()) {
@@ -146,6 +233,20 @@ public class PlayerService {
                            "' (Start Playback: " + startPlayback + ")");
         this.playWhenReady = startPlayback; // Set the flag for auto-play
 
+        if (prepared != null) {
+            mediaPlayer = prepared;
+            addMediaPlayerListeners(); // Replaces the pre-roll listeners
+            statusWrapper.set(mediaPlayer.getStatus());
+            currentTimeMillisWrapper.set(0L);
+            totalDurationMillisWrapper.set(0L);
+            currentSongWrapper.set(song);
+            System.out.println("PlayerService: Using pre-rolled player for '" + song.getTitle() + "'.");
+            if (mediaPlayer.getStatus() == MediaPlayer.Status.READY) {
+                handleMediaReady(); // onReady already fired while pre-rolling
+            }
+            return true;
+        }
+
         try {
             File audioFile = new File(song.getAudioFilePath());
             if (!audioFile.exists() || !audioFile.canRead()) {
@@ -264,11 +365,13 @@ public class PlayerService {
                 currentStatus == MediaPlayer.Status.STOPPED) {
                 System.out.println("PlayerService: Seeking to " + millis + "ms. Current status: " + currentStatus);
                 mediaPlayer.seek(Duration.millis(millis));
+                playbackClock.seek(millis);
                 this.pendingSeekMillis = null; // Clear any prior pending seek
+                notifySeek(millis);
                 
                 // Important: Update current time wrapper even if not playing
                 // This ensures lyrics update properly after seeking without playing
-                Platform.runLater(() -> currentTimeMillisWrapper.set(millis));
+                currentTimeSlot.post(millis);
             } else {
                 System.out.println("PlayerService: Deferring seek to " + millis + "ms. Current status: " + currentStatus);
                 this.pendingSeekMillis = millis;
@@ -285,12 +388,23 @@ public class PlayerService {
      */
     public void dispose() {
         System.out.println("PlayerService: Dispose called. Cleaning up resources.");
+        disposePreparedPlayer();
         disposePlayer();
         System.out.println("PlayerService: Service disposed.");
     }
 
     // --- Private Helper Methods ---
 
+    /**
+     * Invokes the seek handler, if one is set.
+     * @param millis The position seeked to, in milliseconds.
+     */
+    private void notifySeek(long millis) {
+        if (onSeekHandler != null) {
+            onSeekHandler.handle(millis);
+        }
+    }
+
     /**
      * Sets up all necessary listeners on the current {@code mediaPlayer} instance.
      * This method is called internally after a new MediaPlayer is created.
@@ -298,46 +412,33 @@ public class PlayerService {
     private void addMediaPlayerListeners() {
         if (mediaPlayer == null) return; // Added return to prevent NullPointerException if mediaPlayer is null
 
-        // Listener for status changes
+        // Listener for status changes. The clock is updated on the media thread, when the change happens.
+        MediaPlayer player = mediaPlayer;
         mediaPlayer.statusProperty().addListener((@SuppressWarnings("unused") var obs, @SuppressWarnings("unused") var oldStatus, var newStatus) -> {
-            Platform.runLater(() -> statusWrapper.set(newStatus));
+            if (player == mediaPlayer) { // A replaced player must not drive the clock
+                if (newStatus == MediaPlayer.Status.PLAYING) {
+                    playbackClock.setRate(player.getRate());
+                }
+                playbackClock.setRunning(newStatus == MediaPlayer.Status.PLAYING);
+            }
+            statusSlot.post(newStatus);
         });
 
-        // Listener for current time changes
+        // Listener for current time changes. The clock is sampled on the media thread, when the time was reported.
         mediaPlayer.currentTimeProperty().addListener((@SuppressWarnings("unused") var obs, @SuppressWarnings("unused") var oldTime, var newTime) -> {
-            Platform.runLater(() -> currentTimeMillisWrapper.set((long) newTime.toMillis()));
+            long millis = (long) newTime.toMillis();
+            if (player == mediaPlayer) {
+                playbackClock.sample(millis);
+            }
+            currentTimeSlot.post(millis);
         });
 
         // Listener for when media is ready
-        mediaPlayer.setOnReady(() -> {
-            Platform.runLater(() -> {
-                totalDurationMillisWrapper.set((long) mediaPlayer.getTotalDuration().toMillis());
-                // statusWrapper.set(MediaPlayer.Status.READY); // Done by statusProperty listener
-
-                Song currentSong = currentSongWrapper.get();
-                String songTitle = (currentSong != null) ? currentSong.getTitle() : "media";
-
-                System.out.println("PlayerService: Media ready for '" + songTitle +
-                                   "'. Duration: " + mediaPlayer.getTotalDuration().toMillis() + "ms");
-                
-                if (pendingSeekMillis != null) {
-                    System.out.println("PlayerService: Applying pending seek to " + pendingSeekMillis + "ms for '" + songTitle + "'.");
-                    mediaPlayer.seek(Duration.millis(pendingSeekMillis));
-                    // Also update the current time wrapper to ensure lyrics update for pending seeks
-                    currentTimeMillisWrapper.set(pendingSeekMillis);
-                    // pendingSeekMillis is cleared below
-                    pendingSeekMillis = null;
-                }
-
-                if (playWhenReady) {
-                    System.out.println("PlayerService: Auto-playing '" + songTitle + "' as playWhenReady is true.");
-                    play(); // Call the service's play method, which handles playWhenReady flag and plays
-                } else {
-                    // If not auto-playing, player is ready. If a seek was applied, it's at the new position.
-                    System.out.println("PlayerService: Media ready for '" + songTitle + "', playWhenReady is false. Current time: " + mediaPlayer.getCurrentTime().toMillis() + "ms");
-                }
-            });
-        });
+        mediaPlayer.setOnReady(() -> Platform.runLater(() -> {
+            if (mediaPlayer == player) { // Ignore a player replaced before the event was handled
+                handleMediaReady();
+            }
+        }));
 
         // Listener for end of media
         mediaPlayer.setOnEndOfMedia(() -> {
@@ -362,11 +463,122 @@ public class PlayerService {
         // Listener for total duration changes (though setOnReady is often primary for initial duration)
         mediaPlayer.totalDurationProperty().addListener((@SuppressWarnings("unused") var obs, @SuppressWarnings("unused") var oldDuration, var newDuration) -> {
             if (newDuration != null && newDuration != Duration.UNKNOWN) {
-                Platform.runLater(() -> totalDurationMillisWrapper.set((long) newDuration.toMillis()));
+                totalDurationSlot.post((long) newDuration.toMillis());
             }
         });
     }
 
+    /**
+     * Applies the state of the current {@code mediaPlayer} once it is ready: its duration, a deferred seek,
+     * and auto-play if requested.
+     */
+    private void handleMediaReady() {
+        totalDurationMillisWrapper.set((long) mediaPlayer.getTotalDuration().toMillis());
+        // statusWrapper.set(MediaPlayer.Status.READY); // Done by statusProperty listener
+
+        Song currentSong = currentSongWrapper.get();
+        String songTitle = (currentSong != null) ? currentSong.getTitle() : "media";
+
+        System.out.println("PlayerService: Media ready for '" + songTitle +
+                           "'. Duration: " + mediaPlayer.getTotalDuration().toMillis() + "ms");
+        
+        if (pendingSeekMillis != null) {
+            System.out.println("PlayerService: Applying pending seek to " + pendingSeekMillis + "ms for '" + songTitle + "'.");
+            mediaPlayer.seek(Duration.millis(pendingSeekMillis));
+            playbackClock.seek(pendingSeekMillis);
+            notifySeek(pendingSeekMillis);
+            // Also update the current time wrapper to ensure lyrics update for pending seeks
+            currentTimeMillisWrapper.set(pendingSeekMillis);
+            // pendingSeekMillis is cleared below
+            pendingSeekMillis = null;
+        }
+
+        if (playWhenReady) {
+            System.out.println("PlayerService: Auto-playing '" + songTitle + "' as playWhenReady is true.");
+            play(); // Call the service's play method, which handles playWhenReady flag and plays
+        } else {
+            // If not auto-playing, player is ready. If a seek was applied, it's at the new position.
+            System.out.println("PlayerService: Media ready for '" + songTitle + "', playWhenReady is false. Current time: " + mediaPlayer.getCurrentTime().toMillis() + "ms");
+        }
+    }
+
+    /**
+     * Pre-rolls the next song if the current one has entered the pre-roll window: creates a MediaPlayer for the
+     * song supplied by the {@link NextSongSupplier} so that it is ready when the song is loaded. A previously
+     * prepared player for a different song (e.g., after the queue changed) is discarded.
+     */
+    private void prerollIfDue() {
+        if (prerollMillis == 0 || nextSongSupplier == null || mediaPlayer == null
+                || getStatus() != MediaPlayer.Status.PLAYING) {
+            return;
+        }
+        long total = getTotalDurationMillis();
+        if (total <= 0 || total - getCurrentTimeMillis() > prerollMillis) {
+            return;
+        }
+        Song next = nextSongSupplier.peekNextSong();
+        if (next == preparedSong) {
+            return; // Already prepared (or failed to prepare) this song
+        }
+        disposePreparedPlayer();
+        preparedSong = next;
+        if (next == null || next.getAudioFilePath() == null || next.getAudioFilePath().isBlank()) {
+            return;
+        }
+        try {
+            File audioFile = new File(next.getAudioFilePath());
+            if (!audioFile.exists() || !audioFile.canRead()) {
+                throw new IOException("Audio file not found or cannot be read: " + next.getAudioFilePath());
+            }
+            MediaPlayer player = new MediaPlayer(new Media(audioFile.toURI().toString()));
+            player.setOnReady(() -> System.out.println("PlayerService: Pre-rolled '" + next.getTitle() + "' is ready."));
+            player.setOnError(() -> Platform.runLater(() -> {
+                if (preparedPlayer == player) {
+                    System.err.println("PlayerService: Pre-roll of '" + next.getTitle() + "' failed: "
+                                       + (player.getError() != null ? player.getError().getMessage() : "unknown error"));
+                    disposePreparedPlayer();
+                    preparedSong = next; // Do not retry; loadSong will report the error
+                }
+            }));
+            preparedPlayer = player;
+            System.out.println("PlayerService: Pre-rolling '" + next.getTitle() + "' " + (total - getCurrentTimeMillis()) + "ms before the end.");
+        } catch (IOException | IllegalArgumentException | MediaException | SecurityException e) {
+            // Not fatal: the song is loaded the usual way, and loadSong reports the error.
+            System.err.println("PlayerService: Could not pre-roll '" + next.getTitle() + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hands over the pre-rolled player if it was prepared for {@code song}; otherwise discards it.
+     *
+     * @param song The song about to be loaded.
+     * @return The prepared MediaPlayer for {@code song}, or null if there is none.
+     */
+    private MediaPlayer takePreparedPlayer(Song song) {
+        MediaPlayer prepared = (song != null && song == preparedSong) ? preparedPlayer : null;
+        if (prepared != null) {
+            preparedPlayer = null; // Now owned by the caller
+        }
+        disposePreparedPlayer();
+        return prepared;
+    }
+
+    /**
+     * Disposes the pre-rolled MediaPlayer, if any, and forgets the pre-rolled song.
+     */
+    private void disposePreparedPlayer() {
+        if (preparedPlayer != null) {
+            try {
+                preparedPlayer.dispose();
+            } catch (Exception e) {
+                System.err.println("PlayerService: Error disposing pre-rolled media player: " + e.getMessage());
+            } finally {
+                preparedPlayer = null;
+            }
+        }
+        preparedSong = null;
+    }
+
     /**
      * Handles errors occurring during media loading or playback.
      * Logs the error, disposes the player, and resets state wrappers.
@@ -419,6 +631,7 @@ public class PlayerService {
         // Always reset state when player is disposed or was not present
         playWhenReady = false; // Reset auto-play flag
         pendingSeekMillis = null; // Reset pending seek
+        playbackClock.reset();
 
         // Reset observable properties to their initial/default state
         if (currentSongWrapper.get() != null) { // Check before setting to avoid needless event if already null
@@ -16,8 +16,8 @@ import java.sql.SQLException;
  */
 public class ApplicationInitializer {
 
-    // Define the directory where song files (mp3, lrc) are located.
-    private static final String SONGS_DIRECTORY = "songs";
+    /** The directory where song files (mp3, lrc) are located, relative to the working directory. */
+    public static final String SONGS_DIRECTORY = "songs";
 
     // Private constructor to prevent instantiation of this utility class.
     private ApplicationInitializer() {
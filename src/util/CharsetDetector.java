@@ -0,0 +1,299 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A non-instantiable utility class that guesses the character encoding of an LRC file from its bytes,
+ * so files saved in a legacy encoding (common for karaoke content) are not decoded as garbage.
+ * <p>
+ * Detection works on a buffer the caller has already read or mapped, and looks at no more than
+ * {@link #SAMPLE_LIMIT} bytes of it:
+ * <ol>
+ *   <li>A byte order mark selects UTF-8, UTF-16LE or UTF-16BE.</li>
+ *   <li>Otherwise, a sample that is valid UTF-8 (including plain ASCII) is taken as UTF-8.</li>
+ *   <li>Otherwise, each legacy candidate (GBK, Shift_JIS, Big5, windows-1252) is scored on the sample:
+ *       byte sequences the encoding cannot produce rule it out, and characters from the frequently used
+ *       ranges of the encoding (common hanzi, kana, accented Latin letters between ASCII) score for it.
+ *       The best score wins; if no candidate fits, UTF-8 is assumed.</li>
+ * </ol>
+ * Supports SRS FR3.1 (Parse LRC files) for non-UTF-8 lyric files.
+ */
+public final class CharsetDetector {
+
+    /** Maximum number of bytes examined by {@link #detect(ByteBuffer, int, int)}. */
+    public static final int SAMPLE_LIMIT = 64 * 1024;
+
+    private static final Charset GBK = lookup("GBK");
+    // windows-31j is the Windows superset of Shift_JIS (NEC and IBM extensions), as produced by most editors.
+    private static final Charset SHIFT_JIS = lookup("windows-31j");
+    private static final Charset BIG5 = lookup("Big5");
+    private static final Charset WINDOWS_1252 = lookup("windows-1252");
+
+    private CharsetDetector() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Detects the encoding of the bytes between {@code from} and {@code to} in {@code buf}.
+     * Only absolute reads are used, so the buffer's position and limit are left unchanged.
+     *
+     * @param buf The buffer holding the file contents (heap or mapped).
+     * @param from The index of the first byte of the file.
+     * @param to The index just past the last byte of the file.
+     * @return The detected charset; never {@code null}.
+     */
+    public static Charset detect(ByteBuffer buf, int from, int to) {
+        Charset bomCharset = charsetOfBom(buf, from, to);
+        if (bomCharset != null) {
+            return bomCharset;
+        }
+
+        int sampleEnd = (int) Math.min(to, (long) from + SAMPLE_LIMIT);
+        if (isValidUtf8(buf, from, sampleEnd, sampleEnd < to)) {
+            return StandardCharsets.UTF_8;
+        }
+
+        Charset best = StandardCharsets.UTF_8;
+        long bestScore = 0;
+        for (Charset candidate : legacyCandidates()) {
+            long score = score(candidate, buf, from, sampleEnd);
+            if (score > bestScore) { // Ties keep the earlier candidate
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Recognizes a byte order mark at the start of the buffer, without examining the rest of the contents.
+     *
+     * @param buf The buffer holding the file contents.
+     * @param from The index of the first byte of the file.
+     * @param to The index just past the last byte of the file.
+     * @return UTF-8, UTF-16LE or UTF-16BE if the contents start with its byte order mark, otherwise {@code null}.
+     */
+    public static Charset detectBom(ByteBuffer buf, int from, int to) {
+        return charsetOfBom(buf, from, to);
+    }
+
+    /**
+     * Returns the length of the byte order mark at the start of the buffer, if it is the BOM of {@code charset}.
+     *
+     * @param buf The buffer holding the file contents.
+     * @param from The index of the first byte of the file.
+     * @param to The index just past the last byte of the file.
+     * @param charset The charset the contents are decoded with.
+     * @return The number of bytes to skip before decoding: 3 for a UTF-8 BOM, 2 for a UTF-16 BOM, otherwise 0.
+     */
+    public static int bomLength(ByteBuffer buf, int from, int to, Charset charset) {
+        Charset bomCharset = charsetOfBom(buf, from, to);
+        if (bomCharset == null || !bomCharset.equals(charset)) {
+            return 0;
+        }
+        return bomCharset.equals(StandardCharsets.UTF_8) ? 3 : 2;
+    }
+
+    /**
+     * Resolves a charset name stored earlier (e.g., with a song), ignoring names this runtime does not support.
+     *
+     * @param name The charset name, may be {@code null}.
+     * @return The charset, or {@code null} if {@code name} is {@code null}, blank or unsupported.
+     */
+    public static Charset forNameOrNull(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        try {
+            return Charset.isSupported(name) ? Charset.forName(name) : null;
+        } catch (IllegalCharsetNameException e) {
+            return null;
+        }
+    }
+
+    // --- Detection stages ---
+
+    private static Charset charsetOfBom(ByteBuffer buf, int from, int to) {
+        if (to - from >= 3 && buf.get(from) == (byte) 0xEF && buf.get(from + 1) == (byte) 0xBB
+                && buf.get(from + 2) == (byte) 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if (to - from >= 2) {
+            if (buf.get(from) == (byte) 0xFF && buf.get(from + 1) == (byte) 0xFE) {
+                return StandardCharsets.UTF_16LE;
+            }
+            if (buf.get(from) == (byte) 0xFE && buf.get(from + 1) == (byte) 0xFF) {
+                return StandardCharsets.UTF_16BE;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Strictly validates UTF-8 (no overlong forms, surrogates or code points above U+10FFFF).
+     * A sequence cut off by the end of a truncated sample is accepted.
+     */
+    private static boolean isValidUtf8(ByteBuffer buf, int from, int to, boolean truncated) {
+        int i = from;
+        while (i < to) {
+            int b = buf.get(i) & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+            int length;
+            int min2 = 0x80;  // Allowed range of the second byte, narrowed for E0, ED, F0 and F4
+            int max2 = 0xBF;
+            if (b >= 0xC2 && b <= 0xDF) {
+                length = 2;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                length = 3;
+                if (b == 0xE0) min2 = 0xA0;          // Overlong
+                else if (b == 0xED) max2 = 0x9F;     // Surrogates
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                length = 4;
+                if (b == 0xF0) min2 = 0x90;          // Overlong
+                else if (b == 0xF4) max2 = 0x8F;     // Above U+10FFFF
+            } else {
+                return false;
+            }
+            if (i + length > to) {
+                return truncated; // Cut off by the sample limit
+            }
+            int b2 = buf.get(i + 1) & 0xFF;
+            if (b2 < min2 || b2 > max2) {
+                return false;
+            }
+            for (int k = 2; k < length; k++) {
+                if ((buf.get(i + k) & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+            i += length;
+        }
+        return true;
+    }
+
+    private static List<Charset> legacyCandidates() {
+        List<Charset> candidates = new ArrayList<>(4);
+        for (Charset charset : new Charset[] {GBK, SHIFT_JIS, BIG5, WINDOWS_1252}) {
+            if (charset != null) {
+                candidates.add(charset);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Scores how plausible it is that the sample is text in {@code charset}.
+     *
+     * @return The score, or a negative value if the sample contains a byte sequence {@code charset} cannot produce.
+     */
+    private static long score(Charset charset, ByteBuffer buf, int from, int to) {
+        if (charset == WINDOWS_1252) {
+            return scoreWindows1252(buf, from, to);
+        }
+        long score = 0;
+        int i = from;
+        while (i < to) {
+            int lead = buf.get(i) & 0xFF;
+            if (lead < 0x80) {
+                i++;
+                continue;
+            }
+            if (charset == SHIFT_JIS && lead >= 0xA1 && lead <= 0xDF) {
+                i++; // Half-width katakana: valid, but rare in lyrics
+                continue;
+            }
+            if (i + 1 >= to) {
+                break; // Lead byte cut off by the end of the sample
+            }
+            int trail = buf.get(i + 1) & 0xFF;
+            int weight;
+            if (charset == GBK) {
+                weight = weightGbk(lead, trail);
+            } else if (charset == SHIFT_JIS) {
+                weight = weightShiftJis(lead, trail);
+            } else {
+                weight = weightBig5(lead, trail);
+            }
+            if (weight < 0) {
+                return -1;
+            }
+            score += weight;
+            i += 2;
+        }
+        return score;
+    }
+
+    private static int weightGbk(int lead, int trail) {
+        if (lead < 0x81 || lead > 0xFE || trail < 0x40 || trail > 0xFE || trail == 0x7F) {
+            return -1;
+        }
+        if (trail >= 0xA1) {
+            if (lead >= 0xB0 && lead <= 0xD7) return 4;  // GB2312 level 1 hanzi (most frequent)
+            if (lead >= 0xD8 && lead <= 0xF7) return 2;  // GB2312 level 2 hanzi
+            if (lead >= 0xA1 && lead <= 0xA9) return 2;  // GB2312 punctuation, kana, full-width forms
+        }
+        return 0;                                        // GBK extension area: valid but rare
+    }
+
+    private static int weightShiftJis(int lead, int trail) {
+        boolean validLead = (lead >= 0x81 && lead <= 0x9F) || (lead >= 0xE0 && lead <= 0xFC);
+        if (!validLead || trail < 0x40 || trail > 0xFC || trail == 0x7F) {
+            return -1;
+        }
+        if ((lead == 0x82 && trail >= 0x9F && trail <= 0xF1)
+                || (lead == 0x83 && trail >= 0x40 && trail <= 0x96)) {
+            return 4;                                    // Hiragana and katakana (most frequent)
+        }
+        if (lead >= 0x88 && lead <= 0x98) return 2;      // JIS level 1 kanji
+        if (lead == 0x81) return 2;                      // Japanese punctuation and symbols
+        return 1;                                        // Level 2 kanji and extensions
+    }
+
+    private static int weightBig5(int lead, int trail) {
+        boolean validTrail = (trail >= 0x40 && trail <= 0x7E) || (trail >= 0xA1 && trail <= 0xFE);
+        if (lead < 0xA1 || lead > 0xF9 || !validTrail) {
+            return -1;
+        }
+        if (lead >= 0xA4 && lead <= 0xC6) return 4;      // Frequently used hanzi
+        if (lead >= 0xC9) return 2;                      // Less frequently used hanzi
+        if (lead <= 0xA3) return 2;                      // Punctuation and symbols
+        return 0;                                        // C7-C8: reserved area
+    }
+
+    /**
+     * Single-byte text: high bytes between ASCII characters are typical of accented Latin words,
+     * whereas runs of high bytes are typical of multi-byte text and count against windows-1252.
+     */
+    private static long scoreWindows1252(ByteBuffer buf, int from, int to) {
+        long score = 0;
+        for (int i = from; i < to; i++) {
+            int b = buf.get(i) & 0xFF;
+            if (b < 0x80) {
+                continue;
+            }
+            if (b == 0x81 || b == 0x8D || b == 0x8F || b == 0x90 || b == 0x9D) {
+                return -1; // Undefined in windows-1252
+            }
+            boolean highBefore = i > from && (buf.get(i - 1) & 0x80) != 0;
+            boolean highAfter = i + 1 < to && (buf.get(i + 1) & 0x80) != 0;
+            score += (highBefore || highAfter) ? -1 : 3;
+        }
+        return score;
+    }
+
+    private static Charset lookup(String name) {
+        Charset charset = forNameOrNull(name);
+        if (charset == null) {
+            System.err.println("CharsetDetector: Charset " + name + " is not available; it will not be detected.");
+        }
+        return charset;
+    }
+}
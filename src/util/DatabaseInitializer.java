@@ -1,6 +1,7 @@
 package util;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -30,7 +31,9 @@ public class DatabaseInitializer {
      *   <li>{@code offset}: INTEGER - The global lyric offset in milliseconds (nullable).</li>
      *   <li>{@code audio_file_path}: TEXT, NOT NULL, UNIQUE - The file path to the audio file (must be unique).</li>
      *   <li>{@code lyrics_file_path}: TEXT - The file path to the lyrics file (nullable).</li>
+     *   <li>{@code lyrics_charset}: TEXT - The detected charset of the lyrics file (nullable until detected).</li>
      * </ul>
+     * Databases created before {@code lyrics_charset} existed are migrated by adding the column.
      * This method obtains its own database connection and ensures it is closed after the operation.
      * If any {@link SQLException} occurs during the schema initialization, a {@link RuntimeException}
      * is thrown to indicate a critical failure in setting up the database.
@@ -48,7 +51,8 @@ public class DatabaseInitializer {
                 duration INTEGER NOT NULL, -- duration in milliseconds (NOT NULL)
                 offset INTEGER,   -- global offset in milliseconds (nullable)
                 audio_file_path TEXT NOT NULL UNIQUE,
-                lyrics_file_path TEXT
+                lyrics_file_path TEXT,
+                lyrics_charset TEXT -- detected encoding of the lyrics file (nullable)
             );
             """;
             // The UNIQUE constraint on audio_file_path prevents duplicate song entries based on the audio file.
@@ -59,6 +63,7 @@ public class DatabaseInitializer {
 
             // Execute the SQL statement to create the table.
             stmt.execute(createSongsTableSQL);
+            addColumnIfMissing(stmt, "songs", "lyrics_charset", "TEXT");
             System.out.println("Database schema verified/initialized successfully. 'songs' table is ready.");
 
         } catch (SQLException e) {
@@ -69,4 +74,26 @@ public class DatabaseInitializer {
             throw new RuntimeException("Failed to initialize database schema.", e);
         }
     }
+
+    /**
+     * Adds a column to an existing table if it is not present yet, so databases created by an
+     * earlier version of the schema keep working ({@code CREATE TABLE IF NOT EXISTS} does not alter them).
+     *
+     * @param stmt The statement to execute the queries with.
+     * @param table The table name.
+     * @param column The column name.
+     * @param definition The SQL type and constraints of the column.
+     * @throws SQLException If the table cannot be inspected or altered.
+     */
+    private static void addColumnIfMissing(Statement stmt, String table, String column, String definition) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return; // Already present
+                }
+            }
+        }
+        stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        System.out.println("Database schema migrated: added column '" + column + "' to '" + table + "'.");
+    }
 }
@@ -7,7 +7,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.LrcDocument;
+import model.ParseDiagnostics;
 
 /**
  * Utility class to populate the database with song information
@@ -31,14 +35,16 @@ public class DatabasePopulator {
      * Scans the specified directory for .lrc files, attempts to find corresponding .mp3 files,
      * parses metadata from the .lrc file, and inserts the song information into the 'songs' table
      * in the database. It assumes that .mp3 files share the same base name as their .lrc counterparts.
+     * The .lrc files are parsed concurrently (see {@link LrcParser#parseAll(java.util.Collection, LrcParser.ScanMode)});
+     * records are then inserted one by one in file-name order, so the outcome and log output are deterministic.
      * A summary of the population process (files processed, songs added, errors/skips) is printed to standard error.
      *
      * @param directoryPath The path to the directory containing song files (e.g., "songs").
      *                      This path should point to a directory accessible by the application.
      * @return The number of new songs successfully added to the database. Returns 0 if the
      *         directoryPath is invalid or no songs could be added.
-     * @see #processSingleLrcFile(Path, Path, PreparedStatement)
-     * @see #printSummary(int, int, int)
+     * @see #processSingleLrcFile(LrcParser.ParseOutcome, Path, PreparedStatement)
+     * @see #printSummary(int, int, int, ParseDiagnostics, int)
      */
     public static int populateFromLrcFiles(String directoryPath) {
         Path dir = Paths.get(directoryPath);
@@ -48,37 +54,49 @@ public class DatabasePopulator {
         }
 
         // SQL statement for inserting a new song.
-        String insertSQL = "INSERT INTO songs (title, artist, genre, duration, offset, audio_file_path, lyrics_file_path) " +
-                           "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String insertSQL = "INSERT INTO songs (title, artist, genre, duration, offset, audio_file_path, lyrics_file_path, lyrics_charset) " +
+                           "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 
         // Counters for summary report
         int songsAdded = 0;
         int filesProcessed = 0;
         int errorsOrSkipped = 0; // Combined counter for simplicity in reporting
 
-        // Use try-with-resources for database connection and listing files
-        try (PreparedStatement pstmt = DatabaseUtil.getConnection().prepareStatement(insertSQL); // Prepare statement once
-             var stream = Files.list(dir)) {
-
-            // Iterate over files in the directory
-            for (Path path : (Iterable<Path>) stream::iterator) {
-                // Process only files ending with .lrc (case-insensitive check)
-                if (Files.isRegularFile(path) && path.toString().toLowerCase().endsWith(".lrc")) {
-                    filesProcessed++;
-                    // Process the file and update counters based on outcome
-                    boolean added = processSingleLrcFile(path, dir, pstmt);
-                    if (added) {
-                        songsAdded++;
-                    } else {
-                        // Increment if not added (includes skips and errors reported within helper)
-                        errorsOrSkipped++;
-                    }
-                } // end if .lrc file
-            } // end for each path
-
+        // List the .lrc files first (sorted, so results and logs are reproducible), then parse them in parallel.
+        List<Path> lrcPaths = new ArrayList<>();
+        try (var stream = Files.list(dir)) {
+            stream.filter(path -> Files.isRegularFile(path) && path.toString().toLowerCase().endsWith(".lrc"))
+                  .sorted()
+                  .forEach(lrcPaths::add);
         } catch (IOException e) {
             System.err.println("Error listing files in directory: " + directoryPath + " - " + e.getMessage());
-            errorsOrSkipped++; // Count this as an error
+            printSummary(filesProcessed, songsAdded, errorsOrSkipped + 1, new ParseDiagnostics(), 0); // Count this as an error
+            return 0;
+        }
+        List<LrcParser.ParseOutcome> outcomes = readMetadata(lrcPaths);
+        ParseDiagnostics diagnostics = new ParseDiagnostics(); // Parse problems across all files
+        int filesWithProblems = 0;
+        for (LrcParser.ParseOutcome outcome : outcomes) {
+            if (outcome.isSuccess() && !outcome.getDocument().getDiagnostics().isEmpty()) {
+                diagnostics.addAll(outcome.getDocument().getDiagnostics());
+                filesWithProblems++;
+            }
+        }
+
+        // Insert sequentially, in path order, over a single prepared statement
+        try (PreparedStatement pstmt = DatabaseUtil.getConnection().prepareStatement(insertSQL)) { // Prepare statement once
+            for (LrcParser.ParseOutcome outcome : outcomes) {
+                filesProcessed++;
+                // Process the file and update counters based on outcome
+                boolean added = processSingleLrcFile(outcome, dir, pstmt);
+                if (added) {
+                    songsAdded++;
+                } else {
+                    // Increment if not added (includes skips and errors reported within helper)
+                    errorsOrSkipped++;
+                }
+            } // end for each outcome
+
         } catch (SQLException e) {
             System.err.println("Database connection or statement preparation error: " + e.getMessage());
             e.printStackTrace(); // Print stack trace for critical DB errors
@@ -86,16 +104,17 @@ public class DatabasePopulator {
             // return songsAdded; // Or maybe 0 depending on desired behavior
         } finally {
             // Ensure summary is printed even if SQLException occurred during processing loop
-            printSummary(filesProcessed, songsAdded, errorsOrSkipped);
+            printSummary(filesProcessed, songsAdded, errorsOrSkipped, diagnostics, filesWithProblems);
         }
 
         return songsAdded;
     }
 
     /**
-     * Processes a single LRC file:
+     * Processes a single parsed LRC file:
      * 1. Derives the expected MP3 file name and checks for its existence.
-     * 2. Parses metadata (title, artist, genre, duration, offset) from the LRC file using {@link LrcParser}.
+     * 2. Takes the {@link LrcDocument} parsed from the file's metadata header (see {@link #readMetadata(List)}),
+     *    reporting a parse failure if there is one, and reads its metadata (title, artist, genre, duration, offset).
      * 3. Validates essential metadata:
      * <ul>
      *   <li>Title must be present.</li>
@@ -110,7 +129,7 @@ public class DatabasePopulator {
      * will return {@code false} for that file. Skipped files (e.g., duplicates based on
      * unique constraints) are also logged and result in a {@code false} return.
      *
-     * @param lrcPath The {@link Path} object for the .lrc file to be processed.
+     * @param outcome The parse outcome for the .lrc file to be processed.
      * @param containingDir The {@link Path} of the directory where the {@code lrcPath} resides,
      *                      used to resolve the corresponding .mp3 file.
      * @param pstmt The {@link PreparedStatement} (already prepared with the INSERT SQL command)
@@ -118,7 +137,8 @@ public class DatabasePopulator {
      * @return {@code true} if the song was successfully parsed, validated, and added to the database;
      *         {@code false} otherwise (due to a skip, validation failure, or error during processing).
      */
-    private static boolean processSingleLrcFile(Path lrcPath, Path containingDir, PreparedStatement pstmt) {
+    private static boolean processSingleLrcFile(LrcParser.ParseOutcome outcome, Path containingDir, PreparedStatement pstmt) {
+        Path lrcPath = outcome.getPath();
         String lrcFileName = lrcPath.getFileName().toString();
         String baseName = getBaseName(lrcFileName);
 
@@ -133,28 +153,23 @@ public class DatabasePopulator {
         String mp3FilePathAbs = mp3Path.toAbsolutePath().toString();
 
         try {
-            // Parse metadata (including duration and offset)
-            Map<String, Object> metadata = LrcParser.parseMetadataTags(lrcFilePathAbs);
+            // Metadata header (title, artist, genre, duration, offset), parsed ahead of time in parallel
+            if (!outcome.isSuccess()) {
+                throw outcome.getError();
+            }
+            LrcDocument document = outcome.getDocument();
 
-            String title = (String) metadata.get("title");
-            String artist = (String) metadata.get("artist");
-            String genre = (String) metadata.get("genre");
-            Integer duration = (Integer) metadata.get("duration");
-            Long offset = (Long) metadata.get("offset");
+            String title = document.getTitle();
+            String artist = document.getArtist();
+            String genre = document.getGenre();
+            Integer duration = document.getDurationMillis();
+            Long offset = document.getOffsetTagMillis();
 
             // Validate required metadata: title, artist, and duration
-            if (title == null || title.trim().isEmpty()) {
-                System.err.println("Warning: Missing required metadata (title) in LRC file: " + lrcFileName + ". Skipping.");
-                return false; // Not added
-            }
-            if (artist == null || artist.trim().isEmpty()) {
-                System.err.println("Warning: Missing required metadata (artist) in LRC file: " + lrcFileName + ". Skipping.");
-                return false; // Not added
-            }
-            // Duration must be present and positive, consistent with Song object and DB schema (NOT NULL, positive)
-            if (duration == null || duration <= 0) {
-                System.err.println("Warning: Missing or invalid (must be a positive integer) duration in LRC file: "
-                                   + lrcFileName + ". Duration found: " + duration + ". Skipping.");
+            String invalidMetadata = describeInvalidMetadata(document);
+            if (invalidMetadata != null) {
+                System.err.println("Warning: Missing or invalid required metadata (" + invalidMetadata + ") in LRC file: "
+                                   + lrcFileName + ". Skipping.");
                 return false; // Not added
             }
 
@@ -166,6 +181,7 @@ public class DatabasePopulator {
             pstmt.setObject(5, offset);   // Offset is optional and can be null
             pstmt.setString(6, mp3FilePathAbs);
             pstmt.setString(7, lrcFilePathAbs);
+            pstmt.setString(8, document.getCharset() != null ? document.getCharset().name() : null); // Reused on load; null if the header was ASCII
 
             // Execute the insert statement
             int affectedRows = pstmt.executeUpdate();
@@ -181,7 +197,7 @@ public class DatabasePopulator {
                 // Log other SQL errors during insertion
                 System.err.println("Database error inserting record for: " + lrcFileName + " - SQLState: " + e.getSQLState() + " ErrorCode: " + e.getErrorCode() + " Message: " + e.getMessage());
             }
-        } catch (InvalidPathException | ClassCastException e) {
+        } catch (InvalidPathException e) {
             System.err.println("Error processing metadata or path for: " + lrcFileName + " - " + e.getMessage());
         } catch (Exception e) { // Catch unexpected errors during processing
             System.err.println("Unexpected error processing file: " + lrcFileName + " - " + e.getMessage());
@@ -191,6 +207,80 @@ public class DatabasePopulator {
         return false; // Return false if any error/skip occurred
     }
 
+    /**
+     * Reads the metadata of the given LRC files for population, in parallel, like {@link #readMetadata(Path)}
+     * does for a single file.
+     *
+     * @param lrcPaths The .lrc files to read, in the order results should be reported.
+     * @return One {@link LrcParser.ParseOutcome} per path, in the same order. Lyric lines are empty
+     *         unless the fallback scan was needed.
+     */
+    private static List<LrcParser.ParseOutcome> readMetadata(List<Path> lrcPaths) {
+        List<LrcParser.ParseOutcome> outcomes = new ArrayList<>(LrcParser.parseAll(lrcPaths, LrcParser.ScanMode.HEADER));
+
+        List<Integer> incomplete = new ArrayList<>();
+        for (int i = 0; i < outcomes.size(); i++) {
+            LrcDocument header = outcomes.get(i).getDocument();
+            if (header != null && lacksRequiredTag(header)) {
+                incomplete.add(i);
+            }
+        }
+        if (!incomplete.isEmpty()) {
+            List<Path> retryPaths = new ArrayList<>(incomplete.size());
+            for (int index : incomplete) {
+                retryPaths.add(lrcPaths.get(index));
+            }
+            List<LrcParser.ParseOutcome> retried = LrcParser.parseAll(retryPaths, LrcParser.ScanMode.FULL);
+            for (int j = 0; j < incomplete.size(); j++) {
+                outcomes.set(incomplete.get(j), retried.get(j));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Reads the metadata of one LRC file as the population does. Only the header of the file (up to the first
+     * timed lyric line) is scanned, with {@link LrcParser#parseDocumentMapped(Path, LrcParser.ScanMode)}; if it
+     * lacks a required tag (title, artist or duration), the file is scanned again in full as a lenient fallback,
+     * for files that place metadata tags after the lyrics. Used for files changed after population
+     * (see {@code service.LyricsFileWatcher}); check the result with {@link #describeInvalidMetadata(LrcDocument)}.
+     *
+     * @param lrcPath The .lrc file to read.
+     * @return The parsed document. Lyric lines are empty unless the fallback scan was needed.
+     * @throws IOException If the file cannot be read.
+     */
+    public static LrcDocument readMetadata(Path lrcPath) throws IOException {
+        LrcDocument header = LrcParser.parseDocumentMapped(lrcPath, LrcParser.ScanMode.HEADER);
+        return lacksRequiredTag(header) ? LrcParser.parseDocumentMapped(lrcPath, LrcParser.ScanMode.FULL) : header;
+    }
+
+    /**
+     * Checks the metadata a song row requires: a title, an artist, and a positive duration, consistent with the
+     * {@code Song} object and the DB schema (NOT NULL, positive).
+     *
+     * @param document The metadata read from an LRC file.
+     * @return {@code null} if the metadata is valid; otherwise a short description of the first problem for
+     *         warnings, e.g. {@code "title"} or {@code "duration: null"}.
+     */
+    public static String describeInvalidMetadata(LrcDocument document) {
+        if (document.getTitle() == null || document.getTitle().isBlank()) {
+            return "title";
+        }
+        if (document.getArtist() == null || document.getArtist().isBlank()) {
+            return "artist";
+        }
+        Integer duration = document.getDurationMillis();
+        if (duration == null || duration <= 0) {
+            return "duration: " + duration; // Must be a positive integer
+        }
+        return null;
+    }
+
+    /** @return {@code true} if the header lacks a tag a song row requires, so the full file must be scanned. */
+    private static boolean lacksRequiredTag(LrcDocument header) {
+        return header.getTitle() == null || header.getArtist() == null || header.getDurationMillis() == null;
+    }
+
     /**
      * Prints a summary report of the database population process to standard output.
      * This includes the total number of LRC files processed, the number of new songs
@@ -201,13 +291,19 @@ public class DatabasePopulator {
      * @param songsAdded Total number of new songs successfully inserted into the database.
      * @param errorsOrSkipped Total number of files that were skipped (e.g., duplicates, missing MP3s,
      *                        invalid metadata) or caused an error during processing.
+     * @param diagnostics The malformed tags and values skipped while parsing, aggregated over all files.
+     * @param filesWithProblems The number of files that contributed to {@code diagnostics}.
      */
-    private static void printSummary(int filesProcessed, int songsAdded, int errorsOrSkipped) {
+    private static void printSummary(int filesProcessed, int songsAdded, int errorsOrSkipped,
+                                     ParseDiagnostics diagnostics, int filesWithProblems) {
         System.out.println("-----------------------------------------");
         System.out.println("Database Population Summary:");
         System.out.println(" - LRC files processed: " + filesProcessed);
         System.out.println(" - New songs added:     " + songsAdded);
         System.out.println(" - Files skipped/errors:" + errorsOrSkipped); // Updated label
+        if (!diagnostics.isEmpty()) {
+            System.out.println(" - Malformed tags:      " + diagnostics + " in " + filesWithProblems + " file(s)");
+        }
         System.out.println("-----------------------------------------");
     }
 
@@ -1,20 +1,37 @@
 package util;
 
+import model.LrcDocument;
 import model.LyricLine;
+import model.ParseDiagnostics;
+import model.WordTimeline;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,27 +51,54 @@ import java.util.regex.Pattern;
  *   <li>Metadata tags: {@code [tag:value]}, e.g., {@code [ti:Song Title]}, {@code [ar:Artist Name]},
  *   {@code [al:Album Name]}, {@code [length:mm:ss.xxx]} (for song duration),
  *   {@code [genre:Song Genre]}, and {@code [offset:value]} (for global lyric timing adjustment in milliseconds).<li>
+ *   <li>Enhanced-LRC word tags inside the lyric text: {@code <mm:ss.xx>} or {@code <mm:ss.xxx>}. They are removed
+ *   from the line text and collected into the document's {@link WordTimeline}.</li>
  * </ul>
  *
- * All file operations are performed using UTF-8 encoding.
+ * Metadata, the global offset and the timed lines of a file are collected together in a single pass
+ * by {@link #parseDocument(String)}; the narrower entry points are views over that result.
+ * For bulk library scans, {@link #parseDocumentMapped(Path)} produces the same document from a
+ * memory-mapped file, scanning the UTF-8 bytes directly and decoding only tag values and lyric text,
+ * and {@link #parseAll(Collection, ScanMode, Executor)} runs that parse over many files concurrently.
+ * {@link #streamLyrics(String, int, LyricLineSink)} pushes lines to a {@link LyricLineSink} while the file is read.
+ * Malformed tags are skipped and reported through the {@link ParseDiagnostics} carried by each result,
+ * rather than printed. Files are decoded as UTF-8 unless {@link CharsetDetector} finds a byte order mark
+ * or a legacy encoding (GBK, Shift_JIS, Big5, windows-1252); a charset detected once can be passed back
+ * as a hint to skip detection.
  */
 public final class LrcParser {
 
-    // Regex for timed lyric lines: [mm:ss.xx] or [mm:ss.xxx]
-    // Group 1: minutes, Group 2: seconds, Group 3: centiseconds or milliseconds
-    private static final Pattern TIME_TAG_PATTERN = Pattern.compile(
-            "\\[(\\d{2}):(\\d{2})[.:](\\d{2,3})\\]");
+    // Time tags ([mm:ss.xx] / [mm:ss.xxx]) and metadata tags ([ti:], [ar:], [al:], [length:], [genre:], [offset:])
+    // are recognized by the hand-written LrcTagScanner rather than by regular expressions.
 
-    // Regex for standard metadata tags: [key:value]
-    // Group 1: key (e.g., "ti", "ar", "al", "length", "genre", "offset")
-    // Group 2: value
-    private static final Pattern METADATA_TAG_PATTERN = Pattern.compile(
-            "^\\[(ti|ar|al|length|genre|offset):(.*)\\]\\s*$", Pattern.CASE_INSENSITIVE);
+    // Low bits of a sort key holding the line index, see sortedOrder(List).
+    private static final int ORDINAL_BITS = 24;
 
-    // Regex specifically for the [offset:...] tag, used for global lyric timing adjustment.
-    // Group 1: offset value (milliseconds)
-    private static final Pattern LYRIC_OFFSET_TAG_PATTERN = Pattern.compile(
-            "^\\[offset:(.*)\\]\\s*$", Pattern.CASE_INSENSITIVE);
+    /** Default number of lines held back by {@link #streamLyrics(String, int, LyricLineSink)} to restore timestamp order. */
+    public static final int DEFAULT_REORDER_WINDOW = 32;
+
+    // Value of a [length:] tag: "mm:ss", "mm:ss.cs" or "mm:ss.ms". Compiled once and shared by all parses.
+    private static final Pattern DURATION_PATTERN = Pattern.compile("^(\\d{1,2}):(\\d{2})(?:[.:](\\d{1,3}))?$");
+
+    /**
+     * Controls how much of an LRC file a parse reads.
+     * Metadata tags conventionally form a header before the first timed lyric line, so callers that only
+     * need metadata (e.g., library population) can stop early instead of reading the file to the end.
+     */
+    public enum ScanMode {
+        /** Reads the whole file, collecting metadata and all timed lyric lines. */
+        FULL,
+        /**
+         * Collects metadata only, stopping at the first line that carries a valid time tag.
+         * Blank lines, unrecognized tags (e.g., {@code [by:]}) and other non-lyric lines before it are skipped.
+         */
+        HEADER,
+        /**
+         * Collects metadata only, stopping at the first non-blank line that is not a recognized metadata tag.
+         * Reads the least, but misses tags placed after an unrecognized header line.
+         */
+        STRICT_HEADER
+    }
 
     /**
      * Private constructor to prevent instantiation of this utility class.
@@ -70,6 +114,7 @@ public final class LrcParser {
     public static class LrcParseResult {
         private final List<LyricLine> lines;
         private final long offsetMillis;  // From [offset:...] tag, defaults to 0 if not found.
+        private final ParseDiagnostics diagnostics; // Problems found while parsing, never null
 
         /**
          * Constructs an LrcParseResult.
@@ -77,8 +122,19 @@ public final class LrcParser {
          * @param offsetMillis The global offset in milliseconds.
          */
         public LrcParseResult(List<LyricLine> lines, long offsetMillis) {
+            this(lines, offsetMillis, null);
+        }
+
+        /**
+         * Constructs an LrcParseResult that carries the diagnostics of the parse that produced it.
+         * @param lines A list of {@link LyricLine} objects. If null, an empty unmodifiable list is used.
+         * @param offsetMillis The global offset in milliseconds.
+         * @param diagnostics The problems found while parsing. If null, an empty collector is used.
+         */
+        public LrcParseResult(List<LyricLine> lines, long offsetMillis, ParseDiagnostics diagnostics) {
             this.lines = (lines != null) ? Collections.unmodifiableList(new ArrayList<>(lines)) : Collections.emptyList();
             this.offsetMillis = offsetMillis;
+            this.diagnostics = (diagnostics != null) ? diagnostics : new ParseDiagnostics();
         }
 
         /**
@@ -95,93 +151,395 @@ public final class LrcParser {
         public long getOffsetMillis() {
             return offsetMillis;
         }
+
+        /**
+         * @return The problems found while parsing (malformed tags and values); empty if there were none.
+         */
+        public ParseDiagnostics getDiagnostics() {
+            return diagnostics;
+        }
     }
 
     /**
-     * Parses the given LRC file to extract timed lyric lines and the global {@code [offset:...]} value.
-     * Lines are read using UTF-8 encoding. Lyric lines are sorted by their timestamps.
+     * The outcome of parsing one file in {@link #parseAll(Collection, ScanMode, Executor)}:
+     * either the parsed {@link LrcDocument} or the exception that prevented it.
+     */
+    public static final class ParseOutcome {
+        private final Path path;
+        private final LrcDocument document; // null if parsing failed
+        private final Exception error;      // null if parsing succeeded
+
+        private ParseOutcome(Path path, LrcDocument document, Exception error) {
+            this.path = path;
+            this.document = document;
+            this.error = error;
+        }
+
+        /** @return The path of the parsed file, as given in the input collection. */
+        public Path getPath() { return path; }
+
+        /** @return The parsed document, or {@code null} if parsing failed. */
+        public LrcDocument getDocument() { return document; }
+
+        /** @return The exception that made parsing fail (typically an {@link IOException}), or {@code null} on success. */
+        public Exception getError() { return error; }
+
+        /** @return {@code true} if the file was parsed successfully. */
+        public boolean isSuccess() { return error == null; }
+    }
+
+    /**
+     * Parses many LRC files concurrently on the common {@link ForkJoinPool}.
+     *
+     * @param paths The .lrc files to parse.
+     * @param mode How much of each file to scan.
+     * @return One {@link ParseOutcome} per input path, in the iteration order of {@code paths}.
+     * @see #parseAll(Collection, ScanMode, Executor)
+     */
+    public static List<ParseOutcome> parseAll(Collection<Path> paths, ScanMode mode) {
+        return parseAll(paths, mode, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses many LRC files concurrently with {@link #parseDocumentMapped(Path, ScanMode)}, one task per file
+     * on the given executor (e.g., a fork-join pool or a virtual-thread-per-task executor).
+     * <p>
+     * Failures do not abort the batch and are not printed: each file's exception is captured in its
+     * {@link ParseOutcome}. Results are returned in the iteration order of {@code paths} regardless of
+     * completion order, so a sorted input yields a reproducible result. This method blocks until every
+     * file has been parsed.
+     *
+     * @param paths The .lrc files to parse.
+     * @param mode How much of each file to scan.
+     * @param executor The executor that runs the per-file parse tasks.
+     * @return One {@link ParseOutcome} per input path, in the iteration order of {@code paths}.
+     */
+    public static List<ParseOutcome> parseAll(Collection<Path> paths, ScanMode mode, Executor executor) {
+        List<CompletableFuture<ParseOutcome>> tasks = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            tasks.add(CompletableFuture.supplyAsync(() -> parseOutcome(path, mode), executor));
+        }
+
+        List<ParseOutcome> outcomes = new ArrayList<>(tasks.size());
+        for (CompletableFuture<ParseOutcome> task : tasks) {
+            outcomes.add(task.join()); // parseOutcome never throws, so join only waits
+        }
+        return outcomes;
+    }
+
+    /** Parses one file for {@link #parseAll(Collection, ScanMode, Executor)}, capturing any failure. */
+    private static ParseOutcome parseOutcome(Path path, ScanMode mode) {
+        try {
+            return new ParseOutcome(path, parseDocumentMapped(path, mode), null);
+        } catch (IOException | RuntimeException e) {
+            return new ParseOutcome(path, null, e);
+        }
+    }
+
+    /**
+     * Parses the given LRC file in a single pass, collecting its metadata tags, its global
+     * {@code [offset:...]} value and its timed lyric lines into one {@link LrcDocument}.
+     * The encoding is detected with {@link CharsetDetector}. Lyric lines are sorted by their timestamps.
+     * <p>
+     * This is the preferred entry point for both library population (metadata) and playback
+     * (lines and offset), as it reads and scans the file only once.
      *
      * @param filePath The absolute path to the .lrc file.
-     * @return An {@link LrcParseResult} object containing the list of {@link LyricLine}s and the global offset.
-     *         The offset defaults to 0 if no valid {@code [offset:...]} tag is found.
+     * @return An {@link LrcDocument} holding the metadata, offset and sorted lyric lines of the file.
      * @throws IOException If an I/O error occurs during file reading.
      * @throws InvalidPathException If the {@code filePath} string cannot be converted to a {@link Path}.
      */
-    public static LrcParseResult parseLyricsAndOffset(String filePath) throws IOException, InvalidPathException {
-        List<LyricLine> lyricLines = new ArrayList<>();
-        AtomicLong parsedOffsetMillis = new AtomicLong(0); // Default to 0, updated if [offset:] tag is found.
+    public static LrcDocument parseDocument(String filePath) throws IOException, InvalidPathException {
+        return parseDocument(filePath, ScanMode.FULL, null);
+    }
 
-        Path path = Paths.get(filePath);
-        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                processLineForLyricsAndSingleOffset(line.trim(), lyricLines, parsedOffsetMillis);
-            }
-        }
+    /**
+     * Parses the given LRC file like {@link #parseDocument(String)}, reading only as much of it as {@code mode} requires.
+     * With a header mode the returned document holds metadata and the offset but no lyric lines.
+     *
+     * @param filePath The absolute path to the .lrc file.
+     * @param mode How much of the file to scan.
+     * @return An {@link LrcDocument} holding the data collected before the scan stopped.
+     * @throws IOException If an I/O error occurs during file reading.
+     * @throws InvalidPathException If the {@code filePath} string cannot be converted to a {@link Path}.
+     */
+    public static LrcDocument parseDocument(String filePath, ScanMode mode) throws IOException, InvalidPathException {
+        return parseDocument(filePath, mode, null);
+    }
 
-        Collections.sort(lyricLines); // Ensure lines are sorted by timestamp.
-        return new LrcParseResult(lyricLines, parsedOffsetMillis.get());
+    /**
+     * Parses the given LRC file like {@link #parseDocument(String, ScanMode)}, decoding it with a known charset
+     * (e.g., one detected earlier and stored with the song) instead of detecting it again.
+     * <p>
+     * The file is read into memory once; the encoding is detected on that buffer (unless given) and the
+     * buffer is decoded once, skipping a byte order mark. Malformed input is replaced with U+FFFD.
+     *
+     * @param filePath The absolute path to the .lrc file.
+     * @param mode How much of the file to scan.
+     * @param charsetHint The charset to decode with, or {@code null} to detect it.
+     * @return An {@link LrcDocument} holding the data collected before the scan stopped, and the charset used.
+     * @throws IOException If an I/O error occurs during file reading.
+     * @throws InvalidPathException If the {@code filePath} string cannot be converted to a {@link Path}.
+     */
+    public static LrcDocument parseDocument(String filePath, ScanMode mode, Charset charsetHint)
+            throws IOException, InvalidPathException {
+        byte[] bytes = Files.readAllBytes(Paths.get(filePath));
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        Charset charset = (charsetHint != null) ? charsetHint : CharsetDetector.detect(buf, 0, bytes.length);
+        int bom = CharsetDetector.bomLength(buf, 0, bytes.length, charset);
+
+        DocumentState state = new DocumentState(mode, charset);
+        processText(new String(bytes, bom, bytes.length - bom, charset), state);
+        return toDocument(state);
     }
 
     /**
-     * Processes a single line from an LRC file for the {@link #parseLyricsAndOffset(String)} method.
-     * If the line is an {@code [offset:...]} tag, it updates the {@code offsetRef}.
-     * If the line contains timed lyric tags, it parses them and adds {@link LyricLine} objects to {@code lyricLines}.
+     * Parses the given LRC file into an {@link LrcDocument} like {@link #parseDocument(String)}, but maps the
+     * file into memory and, for UTF-8 files, scans its bytes directly instead of decoding the whole file.
+     * Line breaks ({@code \n}, {@code \r}, {@code \r\n}), trimming and all tag syntax are handled at the byte
+     * level; only metadata values and lyric text are decoded into {@link String}s. Files detected as another
+     * encoding are decoded once from the mapping and parsed as text, since the trail bytes of double-byte
+     * encodings may look like ASCII tag characters. The encoding is detected with {@link CharsetDetector},
+     * which examines up to {@link CharsetDetector#SAMPLE_LIMIT} bytes.
+     * <p>
+     * Intended for bulk ingestion (library scans over many small files). The mapping is owned by a confined
+     * {@link Arena} and released as soon as the file has been scanned, so the file is not left locked
+     * (which matters on Windows, where {@link LrcWriter} replaces files in place).
+     * Malformed input in a value or lyric text is replaced with U+FFFD rather than failing the whole file.
      *
-     * @param line The trimmed line content from the LRC file.
-     * @param lyricLines The list to which parsed {@link LyricLine} objects are added.
-     * @param offsetRef An {@link AtomicLong} holding the current global offset, which is updated
-     *                  if an {@code [offset:...]} tag is encountered.
+     * @param path The path to the .lrc file.
+     * @return An {@link LrcDocument} holding the metadata, offset and sorted lyric lines of the file.
+     * @throws IOException If an I/O error occurs while mapping the file, or the file is larger than 2 GB.
      */
-    private static void processLineForLyricsAndSingleOffset(String line, List<LyricLine> lyricLines,
-                                                             AtomicLong offsetRef) {
-        if (line.isEmpty()) {
-            return;
-        }
+    public static LrcDocument parseDocumentMapped(Path path) throws IOException {
+        return parseDocumentMapped(path, ScanMode.FULL, null);
+    }
+
+    /**
+     * Parses the given LRC file like {@link #parseDocumentMapped(Path)}, scanning only as much of it as
+     * {@code mode} requires. With a header mode the returned document has no lyric lines.
+     * <p>
+     * Because mapped pages are read on first access, a header scan reads only the pages holding the header, as long
+     * as its metadata values are ASCII: the encoding is then not needed, and the document's charset is {@code null}
+     * (unknown) rather than a guess from the header alone. The first non-ASCII metadata line triggers
+     * detection, which samples up to {@link CharsetDetector#SAMPLE_LIMIT} bytes of the file. A file found to use an
+     * ASCII-compatible legacy encoding (e.g., GBK or Shift_JIS) is then decoded line by line until the header ends,
+     * never as a whole; only UTF-16 files are still decoded whole.
+     *
+     * @param path The path to the .lrc file.
+     * @param mode How much of the file to scan.
+     * @return An {@link LrcDocument} holding the data collected before the scan stopped.
+     * @throws IOException If an I/O error occurs while mapping the file, or the file is larger than 2 GB.
+     */
+    public static LrcDocument parseDocumentMapped(Path path, ScanMode mode) throws IOException {
+        return parseDocumentMapped(path, mode, null);
+    }
+
+    /**
+     * Parses the given LRC file like {@link #parseDocumentMapped(Path, ScanMode)}, decoding it with a known charset
+     * instead of detecting it from the mapping. A header scan with a hint reports the hint as the charset.
+     *
+     * @param path The path to the .lrc file.
+     * @param mode How much of the file to scan.
+     * @param charsetHint The charset to decode with, or {@code null} to detect it.
+     * @return An {@link LrcDocument} holding the data collected before the scan stopped, and the charset used.
+     * @throws IOException If an I/O error occurs while mapping the file, or the file is larger than 2 GB.
+     */
+    public static LrcDocument parseDocumentMapped(Path path, ScanMode mode, Charset charsetHint) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             Arena arena = Arena.ofConfined()) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("LRC file too large to map: " + path + " (" + size + " bytes)");
+            }
+            if (size == 0) {
+                DocumentState state = new DocumentState(mode, (charsetHint != null) ? charsetHint : StandardCharsets.UTF_8);
+                return toDocument(state);
+            }
 
-        Matcher offsetMatcher = LYRIC_OFFSET_TAG_PATTERN.matcher(line);
-        if (offsetMatcher.matches()) {
-            String offsetValueStr = offsetMatcher.group(1).trim();
-            try {
-                offsetRef.set(Long.parseLong(offsetValueStr));
-            } catch (NumberFormatException e) {
-                System.err.println("Warning: Could not parse [offset:] value in line: \"" + line + "\". Error: " + e.getMessage());
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena).asByteBuffer();
+            int limit = (int) size;
+            Charset charset = charsetHint;
+            if (charset == null) {
+                // A header scan looks for a byte order mark only, and detects on the first non-ASCII byte (below).
+                charset = (mode == ScanMode.FULL) ? CharsetDetector.detect(buf, 0, limit) : CharsetDetector.detectBom(buf, 0, limit);
+            }
+            int bom = (charset != null) ? CharsetDetector.bomLength(buf, 0, limit, charset) : 0;
+            DocumentState state = new DocumentState(mode, charset);
+
+            if (charset != null && !charset.equals(StandardCharsets.UTF_8)
+                    && (mode == ScanMode.FULL || !splitsOnAsciiLineBreaks(charset))) {
+                byte[] bytes = new byte[limit - bom];
+                buf.get(bom, bytes);
+                processText(new String(bytes, charset), state);
+                return toDocument(state);
             }
-            return; // An offset line does not contain lyrics.
-        }
 
-        Matcher timeMatcher = TIME_TAG_PATTERN.matcher(line);
-        List<Long> timestamps = new ArrayList<>();
-        int lastTagEnd = 0;
-        boolean foundTimeTag = false;
+            int lineStart = bom;
+            while (!state.done && lineStart < limit) {
+                int lineEnd = lineStart;
+                boolean ascii = true;
+                byte b = 0;
+                while (lineEnd < limit && (b = buf.get(lineEnd)) != '\n' && b != '\r') {
+                    ascii &= (b >= 0);
+                    lineEnd++;
+                }
+                if (state.charset == null && !ascii && isMetadataLine(buf, lineStart, lineEnd, state)) {
+                    state.charset = CharsetDetector.detect(buf, 0, limit); // First non-ASCII value of a header scan
+                }
+                if (state.charset == null || state.charset.equals(StandardCharsets.UTF_8)) {
+                    processLine(buf, lineStart, lineEnd, state);
+                } else {
+                    // Legacy encoding in a header scan: decode this line only (see splitsOnAsciiLineBreaks).
+                    byte[] bytes = new byte[lineEnd - lineStart];
+                    buf.get(lineStart, bytes);
+                    processLine(new String(bytes, state.charset).trim(), state);
+                }
 
-        while (timeMatcher.find()) {
-            foundTimeTag = true;
-            Long parsedMillis = parseLrcTimestamp(timeMatcher);
-            if (parsedMillis != null) {
-                timestamps.add(parsedMillis);
-                lastTagEnd = timeMatcher.end();
+                lineStart = lineEnd + 1;
+                if (b == '\r' && lineStart < limit && buf.get(lineStart) == '\n') {
+                    lineStart++; // CRLF counts as a single line break
+                }
             }
+            return toDocument(state);
         }
+    }
 
-        if (foundTimeTag) {
-            String text = line.substring(lastTagEnd).trim();
-            // Even if the text part is empty, if there are valid timestamps, add them.
-            // This handles LRC lines that might just be for timing or empty phrases.
-            if (!timestamps.isEmpty()) {
-                for (Long timestamp : timestamps) {
-                    lyricLines.add(new LyricLine(timestamp, text));
+    /**
+     * Parses the given LRC file incrementally, pushing each timed lyric line to {@code sink} as soon as
+     * its position in timestamp order is settled, instead of building and sorting the whole list first.
+     * The encoding is detected with {@link CharsetDetector}.
+     * <p>
+     * Out-of-order timestamps are handled with a bounded reorder window rather than a full sort: up to
+     * {@code reorderWindow} lines are held back in a priority queue, and the earliest is released whenever
+     * the window overflows. Lines that are displaced by no more than the window (including the several
+     * timestamps of one multi-timestamp line) therefore arrive in order, matching {@link #parseDocument(String)}.
+     * A line displaced further is still delivered, out of order, and {@link LyricLineSink#onComplete(boolean)}
+     * reports {@code false}.
+     *
+     * @param filePath The absolute path to the .lrc file.
+     * @param reorderWindow The maximum number of lines held back for reordering; 0 delivers lines in file order.
+     * @param sink The receiver of the parsed lines and offset.
+     * @throws IOException If an I/O error occurs during file reading. Lines already delivered remain delivered,
+     *                     and {@link LyricLineSink#onComplete(boolean)} is not called.
+     * @throws InvalidPathException If the {@code filePath} string cannot be converted to a {@link Path}.
+     * @throws IllegalArgumentException If {@code reorderWindow} is negative.
+     */
+    public static void streamLyrics(String filePath, int reorderWindow, LyricLineSink sink)
+            throws IOException, InvalidPathException {
+        streamLyrics(filePath, reorderWindow, null, sink);
+    }
+
+    /**
+     * Parses the given LRC file incrementally like {@link #streamLyrics(String, int, LyricLineSink)}, decoding it
+     * with a known charset instead of detecting it. Detection, when needed, only examines the first
+     * {@link CharsetDetector#SAMPLE_LIMIT} bytes, which are read once and then parsed from memory.
+     *
+     * @param filePath The absolute path to the .lrc file.
+     * @param reorderWindow The maximum number of lines held back for reordering; 0 delivers lines in file order.
+     * @param charsetHint The charset to decode with, or {@code null} to detect it.
+     * @param sink The receiver of the parsed lines and offset.
+     * @throws IOException If an I/O error occurs during file reading. Lines already delivered remain delivered,
+     *                     and {@link LyricLineSink#onComplete(boolean)} is not called.
+     * @throws InvalidPathException If the {@code filePath} string cannot be converted to a {@link Path}.
+     * @throws IllegalArgumentException If {@code reorderWindow} is negative.
+     */
+    public static void streamLyrics(String filePath, int reorderWindow, Charset charsetHint, LyricLineSink sink)
+            throws IOException, InvalidPathException {
+        stream(filePath, reorderWindow, charsetHint, sink, false);
+    }
+
+    /**
+     * Parses the given LRC file into an {@link LrcDocument} like {@link #parseDocument(String, ScanMode, Charset)}
+     * with {@link ScanMode#FULL}, while pushing each timed lyric line to {@code sink} as it is read, like
+     * {@link #streamLyrics(String, int, Charset, LyricLineSink)}. A caller can show the first lines of a long file
+     * early and still obtain the complete document, with word timing and diagnostics, from the same pass.
+     *
+     * @param filePath The absolute path to the .lrc file.
+     * @param reorderWindow The maximum number of lines held back for reordering; 0 delivers lines in file order.
+     * @param charsetHint The charset to decode with, or {@code null} to detect it.
+     * @param sink The receiver of the lines and offset while the file is parsed.
+     * @return An {@link LrcDocument} holding the metadata, offset and sorted lyric lines of the file.
+     * @throws IOException If an I/O error occurs during file reading. Lines already delivered remain delivered,
+     *                     and {@link LyricLineSink#onComplete(boolean)} is not called.
+     * @throws InvalidPathException If the {@code filePath} string cannot be converted to a {@link Path}.
+     * @throws IllegalArgumentException If {@code reorderWindow} is negative.
+     */
+    public static LrcDocument parseDocument(String filePath, int reorderWindow, Charset charsetHint, LyricLineSink sink)
+            throws IOException, InvalidPathException {
+        return toDocument(stream(filePath, reorderWindow, charsetHint, sink, true));
+    }
+
+    /**
+     * Reads the given LRC file line by line, pushing each timed lyric line through a reorder window to {@code sink}.
+     * With {@code keepDocument}, the lines and their word timing also stay in the returned state for
+     * {@link #toDocument(DocumentState)}; otherwise each line only lives in the window.
+     */
+    private static DocumentState stream(String filePath, int reorderWindow, Charset charsetHint, LyricLineSink sink,
+                                        boolean keepDocument) throws IOException, InvalidPathException {
+        if (reorderWindow < 0) {
+            throw new IllegalArgumentException("Reorder window cannot be negative: " + reorderWindow);
+        }
+        Path path = Paths.get(filePath);
+        ReorderWindow window = new ReorderWindow(reorderWindow, sink);
+        DocumentState state;
+
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] head = in.readNBytes(CharsetDetector.SAMPLE_LIMIT);
+            ByteBuffer headBuf = ByteBuffer.wrap(head);
+            Charset charset = (charsetHint != null) ? charsetHint : CharsetDetector.detect(headBuf, 0, head.length);
+            int bom = CharsetDetector.bomLength(headBuf, 0, head.length, charset);
+            state = new DocumentState(ScanMode.FULL, charset);
+            state.collectWords = keepDocument; // Word timing is only kept with the document
+
+            // The already-read head is parsed from memory, followed by the rest of the stream.
+            InputStream whole = new SequenceInputStream(new ByteArrayInputStream(head, bom, head.length - bom), in);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(whole, charset));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Long offsetBefore = state.offsetMillis;
+                int linesBefore = state.lyricLines.size();
+                processLine(line.trim(), state);
+
+                if (state.offsetMillis != null && !state.offsetMillis.equals(offsetBefore)) {
+                    sink.onOffset(state.offsetMillis);
+                }
+                for (int i = linesBefore; i < state.lyricLines.size(); i++) {
+                    window.push(state.lyricLines.get(i));
+                }
+                if (!keepDocument) {
+                    state.lyricLines.clear(); // Lines live in the window, not in the state
                 }
             }
         }
+
+        window.flush();
+        sink.onComplete(window.ordered);
+        return state;
+    }
+
+    /**
+     * Parses the given LRC file to extract timed lyric lines and the global {@code [offset:...]} value.
+     * The encoding is detected with {@link CharsetDetector}. Lyric lines are sorted by their timestamps.
+     * This is a convenience view over {@link #parseDocument(String)}.
+     *
+     * @param filePath The absolute path to the .lrc file.
+     * @return An {@link LrcParseResult} object containing the list of {@link LyricLine}s and the global offset.
+     *         The offset defaults to 0 if no valid {@code [offset:...]} tag is found.
+     * @throws IOException If an I/O error occurs during file reading.
+     * @throws InvalidPathException If the {@code filePath} string cannot be converted to a {@link Path}.
+     */
+    public static LrcParseResult parseLyricsAndOffset(String filePath) throws IOException, InvalidPathException {
+        LrcDocument document = parseDocument(filePath);
+        return new LrcParseResult(document.getLines(), document.getOffsetMillis(), document.getDiagnostics());
     }
 
     /**
      * Parses metadata tags (e.g., title, artist, album, duration from {@code [length:]}, genre, global {@code [offset:]})
-     * from the specified LRC file.
+     * from the specified LRC file. This is a convenience view over {@link #parseDocument(String)}.
      * Metadata keys in the returned map are: "title", "artist", "album", "genre", "duration" (Integer, milliseconds),
      * and "offset" (Long, milliseconds). If a tag is not found or its value is invalid, the corresponding
-     * map entry may be {@code null} or absent for typed values (duration, offset).
+     * map entry is {@code null}.
      *
      * @param filePath The absolute path to the .lrc file.
      * @return A {@link Map} where keys are metadata tag names (e.g., "title", "artist") and
@@ -190,161 +548,492 @@ public final class LrcParser {
      * @throws InvalidPathException If the {@code filePath} string cannot be converted to a {@link Path}.
      */
     public static Map<String, Object> parseMetadataTags(String filePath) throws IOException, InvalidPathException {
+        return parseMetadataTags(filePath, ScanMode.FULL);
+    }
+
+    /**
+     * Parses metadata tags like {@link #parseMetadataTags(String)}, reading only as much of the file as {@code mode}
+     * requires. {@link ScanMode#HEADER} stops at the first timed lyric line, so tags placed after the lyrics are missed.
+     *
+     * @param filePath The absolute path to the .lrc file.
+     * @param mode How much of the file to scan.
+     * @return A {@link Map} of metadata tag names to parsed values, as described for {@link #parseMetadataTags(String)}.
+     * @throws IOException If an I/O error occurs during file reading.
+     * @throws InvalidPathException If the {@code filePath} string cannot be converted to a {@link Path}.
+     */
+    public static Map<String, Object> parseMetadataTags(String filePath, ScanMode mode) throws IOException, InvalidPathException {
+        LrcDocument document = parseDocument(filePath, mode);
         Map<String, Object> metadata = new HashMap<>();
-        // Initialize expected keys to null.
-        metadata.put("title", null);
-        metadata.put("artist", null);
-        metadata.put("album", null);
-        metadata.put("genre", null);
-        metadata.put("duration", null); // Will be Integer (milliseconds)
-        metadata.put("offset", null);   // Will be Long (milliseconds)
+        metadata.put("title", document.getTitle());
+        metadata.put("artist", document.getArtist());
+        metadata.put("album", document.getAlbum());
+        metadata.put("genre", document.getGenre());
+        metadata.put("duration", document.getDurationMillis()); // Integer (milliseconds)
+        metadata.put("offset", document.getOffsetTagMillis());  // Long (milliseconds)
+        return metadata;
+    }
 
-        Path path = Paths.get(filePath);
-        String fileNameForContext = path.getFileName().toString(); // For logging
+    /**
+     * Mutable accumulator for the values collected while scanning a single LRC file
+     * in {@link #parseDocument(String)}.
+     */
+    private static final class DocumentState {
+        private final ScanMode mode;
+        private Charset charset;                // Encoding the file is decoded with, null while a header scan saw only ASCII
+        private boolean done;                    // Set once a header scan reaches the end of the header
+        private int lineNumber;                  // 1-based number of the line being processed
+        private final ParseDiagnostics diagnostics = new ParseDiagnostics();
+        private final LrcTagScanner scanner = new LrcTagScanner(); // Reused for every line of the file
+        private final List<LyricLine> lyricLines = new ArrayList<>();
+        private final LyricTextPool textPool = new LyricTextPool(); // Makes repeated lyric texts share one instance
+        private byte[] scratch = new byte[256]; // Decode buffer for the mapped path, grown on demand
+        private String title;
+        private String artist;
+        private String album;
+        private String genre;
+        private Integer durationMillis;
+        private Long offsetMillis;
+        private boolean collectWords = true;    // False when only the lines are wanted (streaming)
+        private long[] wordTimes = new long[0];  // Word times relative to their source line's earliest timestamp
+        private int[] wordStarts = new int[0];   // Word starts in their line's text
+        private int[] wordLengths = new int[0];  // Word lengths in their line's text
+        private int wordCount;                   // Number of valid entries in the word arrays
+        private int[] lineFirstWord;             // Parallel to 'lyricLines'; null until a line has words
+        private int[] lineWordCount;             // Parallel to 'lyricLines'; 0 for lines without words
 
-        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Matcher matcher = METADATA_TAG_PATTERN.matcher(line.trim());
-                if (matcher.matches()) {
-                    String key = matcher.group(1).toLowerCase().trim();
-                    String value = matcher.group(2).trim();
-
-                    switch (key) {
-                        case "ti":
-                            metadata.put("title", value);
-                            break;
-                        case "ar":
-                            metadata.put("artist", value);
-                            break;
-                        case "al":
-                            metadata.put("album", value);
-                            break;
-                        case "length":
-                            Integer durationMillis = parseDurationValue(value, fileNameForContext);
-                            if (durationMillis != null) {
-                                metadata.put("duration", durationMillis);
-                            }
-                            break;
-                        case "genre":
-                            metadata.put("genre", value);
-                            break;
-                        case "offset":
-                            Long offsetMillis = parseOffsetValue(value, fileNameForContext);
-                            if (offsetMillis != null) {
-                                metadata.put("offset", offsetMillis);
-                            }
-                            break;
-                        default:
-                            // Silently ignore unknown tags, or log if necessary:
-                            // System.err.println("Info: Unknown metadata tag '" + key + "' in file: " + fileNameForContext);
-                            break;
-                    }
-                }
+        private DocumentState(ScanMode mode, Charset charset) {
+            this.mode = mode;
+            this.charset = charset;
+        }
+
+        private void addWord(long relativeMillis, int start, int length) {
+            if (wordCount == wordTimes.length) {
+                int capacity = Math.max(16, wordCount * 2);
+                wordTimes = Arrays.copyOf(wordTimes, capacity);
+                wordStarts = Arrays.copyOf(wordStarts, capacity);
+                wordLengths = Arrays.copyOf(wordLengths, capacity);
             }
+            wordTimes[wordCount] = relativeMillis;
+            wordStarts[wordCount] = start;
+            wordLengths[wordCount] = length;
+            wordCount++;
+        }
+
+        private void setLineWords(int lineIndex, int firstWord, int count) {
+            if (lineFirstWord == null || lineIndex >= lineFirstWord.length) {
+                int capacity = Math.max(lineIndex + 1, Math.max(64, lyricLines.size() * 2));
+                lineFirstWord = (lineFirstWord == null) ? new int[capacity] : Arrays.copyOf(lineFirstWord, capacity);
+                lineWordCount = (lineWordCount == null) ? new int[capacity] : Arrays.copyOf(lineWordCount, capacity);
+            }
+            lineFirstWord[lineIndex] = firstWord;
+            lineWordCount[lineIndex] = count;
         }
-        return metadata;
     }
 
     /**
-     * Parses a matched LRC time tag (e.g., {@code [mm:ss.xx]} or {@code [mm:ss.xxx]}) into total milliseconds.
+     * Bounded reorder buffer for {@link #streamLyrics(String, int, LyricLineSink)}. Holds at most
+     * {@code capacity} lines in a priority queue ordered by timestamp, then by arrival, so that equal
+     * timestamps keep file order just like the stable sort of a full parse.
+     */
+    private static final class ReorderWindow {
+        private final int capacity;
+        private final LyricLineSink sink;
+        private final PriorityQueue<Pending> queue;
+        private long arrivals;                   // Sequence number of the next pushed line
+        private long lastEmittedMillis = -1;     // Timestamp of the last delivered line
+        private boolean ordered = true;          // False once a line is delivered behind a later one
+
+        private ReorderWindow(int capacity, LyricLineSink sink) {
+            this.capacity = capacity;
+            this.sink = sink;
+            this.queue = new PriorityQueue<>(capacity + 1, (a, b) -> {
+                int byTime = Long.compare(a.line.getTimestampMillis(), b.line.getTimestampMillis());
+                return (byTime != 0) ? byTime : Long.compare(a.arrival, b.arrival);
+            });
+        }
+
+        private void push(LyricLine line) {
+            queue.add(new Pending(line, arrivals++));
+            if (queue.size() > capacity) {
+                emit(queue.poll());
+            }
+        }
+
+        private void flush() {
+            while (!queue.isEmpty()) {
+                emit(queue.poll());
+            }
+        }
+
+        private void emit(Pending pending) {
+            long timestamp = pending.line.getTimestampMillis();
+            if (timestamp < lastEmittedMillis) {
+                ordered = false; // Arrived after the window had already released a later line
+            } else {
+                lastEmittedMillis = timestamp;
+            }
+            sink.onLine(pending.line);
+        }
+    }
+
+    /** A line waiting in a {@link ReorderWindow}, tagged with its arrival order. */
+    private static final class Pending {
+        private final LyricLine line;
+        private final long arrival;
+
+        private Pending(LyricLine line, long arrival) {
+            this.line = line;
+            this.arrival = arrival;
+        }
+    }
+
+    /**
+     * Checks whether a raw line is a recognized metadata tag, i.e. a line whose value a header scan decodes.
+     * Other lines are skipped or end the header without being decoded.
+     */
+    private static boolean isMetadataLine(ByteBuffer buf, int from, int to, DocumentState state) {
+        while (from < to && (buf.get(from) & 0xFF) <= 0x20) {
+            from++;
+        }
+        while (to > from && (buf.get(to - 1) & 0xFF) <= 0x20) {
+            to--;
+        }
+        return from < to && state.scanner.scanMetadataTag(buf, from, to) != LrcTagScanner.TAG_NONE;
+    }
+
+    /**
+     * Checks whether the line breaks and tag characters of {@code charset} are the single ASCII bytes, so that a
+     * file can be split into lines on the raw bytes and each line decoded on its own. This holds for UTF-8 and the
+     * legacy encodings of {@link CharsetDetector}, whose multi-byte trail bytes never fall below 0x40, but not for
+     * UTF-16.
+     */
+    private static boolean splitsOnAsciiLineBreaks(Charset charset) {
+        String probe = "\n\r[]:";
+        return Arrays.equals(probe.getBytes(charset), probe.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Splits decoded file contents into lines at {@code \n}, {@code \r} or {@code \r\n}, as
+     * {@link BufferedReader#readLine()} does, and processes each trimmed line until the scan is done.
      *
-     * @param matcher A {@link Matcher} object for {@link #TIME_TAG_PATTERN} where {@code find()}
-     *                has just returned {@code true}.
-     * @return The timestamp in milliseconds, or {@code null} if parsing fails or components are invalid.
+     * @param content The decoded file contents, without a byte order mark.
+     * @param state The accumulator for the document being parsed.
      */
-    private static Long parseLrcTimestamp(Matcher matcher) {
-        try {
-            long minutes = Long.parseLong(matcher.group(1));
-            long seconds = Long.parseLong(matcher.group(2));
-            String fracSecStr = matcher.group(3); // Milliseconds or centiseconds part
-            long fracSeconds = Long.parseLong(fracSecStr);
+    private static void processText(String content, DocumentState state) {
+        int length = content.length();
+        int lineStart = 0;
+        while (!state.done && lineStart < length) {
+            int lineEnd = lineStart;
+            char c = 0;
+            while (lineEnd < length && (c = content.charAt(lineEnd)) != '\n' && c != '\r') {
+                lineEnd++;
+            }
+            processLine(content.substring(lineStart, lineEnd).trim(), state);
 
-            if (fracSecStr.length() == 2) { // Input is in centiseconds
-                fracSeconds *= 10; // Convert centiseconds to milliseconds
+            lineStart = lineEnd + 1;
+            if (c == '\r' && lineStart < length && content.charAt(lineStart) == '\n') {
+                lineStart++; // CRLF counts as a single line break
             }
+        }
+    }
 
-            // Validate time components
-            if (minutes < 0 || seconds < 0 || seconds >= 60 || fracSeconds < 0 || fracSeconds >= 1000) {
-                System.err.println("Warning: Invalid time components in LRC timestamp: " + matcher.group(0));
-                return null;
+    /** Builds the result of a parse, sorting the collected lines by timestamp (stable for equal timestamps). */
+    private static LrcDocument toDocument(DocumentState state) {
+        if (state.lineFirstWord == null) {
+            Collections.sort(state.lyricLines);
+            return new LrcDocument(state.title, state.artist, state.album, state.genre,
+                                   state.durationMillis, state.offsetMillis, state.lyricLines,
+                                   state.diagnostics, state.charset, null, state.textPool.toString());
+        }
+
+        // Lines carry words: sort a permutation instead, so the per-line word ranges can follow their lines.
+        List<LyricLine> unsorted = state.lyricLines;
+        int lineCount = unsorted.size();
+        int[] order = sortedOrder(unsorted);
+        List<LyricLine> sorted = new ArrayList<>(lineCount);
+        int[] lineFirstWord = new int[lineCount];
+        int[] lineWordCount = new int[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            int source = order[i];
+            sorted.add(unsorted.get(source));
+            if (source < state.lineFirstWord.length) { // Lines after the last worded line have no words
+                lineFirstWord[i] = state.lineFirstWord[source];
+                lineWordCount[i] = state.lineWordCount[source];
             }
-            return (minutes * 60 + seconds) * 1000 + fracSeconds;
-        } catch (NumberFormatException e) {
-            System.err.println("Warning: Could not parse LRC timestamp: " + matcher.group(0) + ". Error: " + e.getMessage());
-            return null;
+        }
+        WordTimeline words = new WordTimeline(Arrays.copyOf(state.wordTimes, state.wordCount),
+                                              Arrays.copyOf(state.wordStarts, state.wordCount),
+                                              Arrays.copyOf(state.wordLengths, state.wordCount),
+                                              lineFirstWord, lineWordCount);
+        return new LrcDocument(state.title, state.artist, state.album, state.genre,
+                               state.durationMillis, state.offsetMillis, sorted,
+                               state.diagnostics, state.charset, words, state.textPool.toString());
+    }
+
+    /**
+     * Returns the indices of {@code lines} in stable timestamp order. Each line is packed into one primitive key,
+     * timestamp in the high bits and index in the low {@link #ORDINAL_BITS} bits, so a plain {@code long[]} sort
+     * is stable; time tags are at most 99:59.999, which leaves ample room. Longer lists fall back to a boxed sort.
+     */
+    private static int[] sortedOrder(List<LyricLine> lines) {
+        int n = lines.size();
+        int[] order = new int[n];
+        if (n < (1 << ORDINAL_BITS)) {
+            long[] keys = new long[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = (lines.get(i).getTimestampMillis() << ORDINAL_BITS) | i;
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < n; i++) {
+                order[i] = (int) (keys[i] & ((1 << ORDINAL_BITS) - 1));
+            }
+            return order;
+        }
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, (a, b) -> lines.get(a).compareTo(lines.get(b))); // Stable merge sort
+        for (int i = 0; i < n; i++) {
+            order[i] = boxed[i];
+        }
+        return order;
+    }
+
+    /**
+     * Processes a single line from an LRC file for the {@link #parseDocument(String)} method.
+     * If the line is a recognized metadata tag (including {@code [offset:...]}), its value is stored in {@code state}.
+     * Otherwise, if the line contains timed lyric tags, they are parsed and {@link LyricLine} objects are added
+     * to the state's lyric lines. In a header {@link ScanMode}, the line that ends the header marks the state as done instead.
+     *
+     * @param line The trimmed line content from the LRC file.
+     * @param state The accumulator for the document being parsed.
+     */
+    private static void processLine(String line, DocumentState state) {
+        state.lineNumber++;
+        if (line.isEmpty()) {
+            return;
+        }
+
+        LrcTagScanner scanner = state.scanner;
+        int tag = scanner.scanMetadataTag(line);
+        if (tag != LrcTagScanner.TAG_NONE) {
+            applyMetadata(tag, line.substring(scanner.valueStart(), scanner.valueEnd()).trim(), state);
+            return; // A metadata line does not contain lyrics.
+        }
+
+        if (state.mode == ScanMode.STRICT_HEADER) {
+            state.done = true; // First non-metadata line ends a strict header.
+            return;
+        }
+
+        int timestampCount = scanner.scanTimeTags(line);
+        recordInvalidTimeTags(scanner, state);
+        if (timestampCount > 0 && state.mode == ScanMode.HEADER) {
+            state.done = true; // First timed lyric line ends the header.
+            return;
+        }
+        if (timestampCount > 0) {
+            // Even if the text part is empty, if there are valid timestamps, add them.
+            // This handles LRC lines that might just be for timing or empty phrases.
+            addTimedLines(line.substring(scanner.textStart()).trim(), timestampCount, state);
+        }
+    }
+
+    /**
+     * Byte-level counterpart of {@link #processLine(String, DocumentState)} for {@link #parseDocumentMapped(Path)}.
+     * Trims the line, recognizes tags on the raw UTF-8 bytes, and decodes only the metadata value or lyric text.
+     *
+     * @param buf The mapped file contents.
+     * @param from The index of the first byte of the line.
+     * @param to The index just past the last byte of the line, excluding the line break.
+     * @param state The accumulator for the document being parsed.
+     */
+    private static void processLine(ByteBuffer buf, int from, int to, DocumentState state) {
+        state.lineNumber++;
+        // Same trimming rule as String.trim(): bytes <= 0x20 are always single-byte ASCII in UTF-8.
+        while (from < to && (buf.get(from) & 0xFF) <= 0x20) {
+            from++;
+        }
+        while (to > from && (buf.get(to - 1) & 0xFF) <= 0x20) {
+            to--;
+        }
+        if (from == to) {
+            return;
+        }
+
+        LrcTagScanner scanner = state.scanner;
+        int tag = scanner.scanMetadataTag(buf, from, to);
+        if (tag != LrcTagScanner.TAG_NONE) {
+            applyMetadata(tag, decode(buf, scanner.valueStart(), scanner.valueEnd(), state).trim(), state);
+            return; // A metadata line does not contain lyrics.
+        }
+
+        if (state.mode == ScanMode.STRICT_HEADER) {
+            state.done = true; // First non-metadata line ends a strict header.
+            return;
+        }
+
+        int timestampCount = scanner.scanTimeTags(buf, from, to);
+        recordInvalidTimeTags(scanner, state);
+        if (timestampCount > 0 && state.mode == ScanMode.HEADER) {
+            state.done = true; // First timed lyric line ends the header.
+            return;
+        }
+        if (timestampCount > 0) {
+            addTimedLines(decode(buf, scanner.textStart(), to, state).trim(), timestampCount, state);
+        }
+    }
+
+    /**
+     * Adds one {@link LyricLine} per valid timestamp of the current line, after removing any enhanced-LRC
+     * word tags from its text. The text is shared with earlier lines of the file that have the same text
+     * (see {@link LyricTextPool}), so a repeated chorus is stored once. The words are stored once per source line,
+     * with times relative to the line's earliest timestamp, and every copy of the line refers to the same words.
+     *
+     * @param text The trimmed lyric text following the line's time tags.
+     * @param timestampCount The number of valid timestamps found by the scanner on this line.
+     * @param state The accumulator for the document being parsed.
+     */
+    private static void addTimedLines(String text, int timestampCount, DocumentState state) {
+        LrcTagScanner scanner = state.scanner;
+        String lyricText = scanner.stripWordTags(text);
+        for (int i = scanner.invalidWordTagCount(); i > 0; i--) {
+            state.diagnostics.record(ParseDiagnostics.Kind.INVALID_TIME_TAG, state.lineNumber);
+        }
+
+        int wordCount = state.collectWords ? scanner.wordCount() : 0;
+        int firstWord = state.wordCount;
+        if (wordCount > 0) {
+            long lineStart = scanner.timestampAt(0); // Word tags time the earliest occurrence of the line
+            for (int i = 1; i < timestampCount; i++) {
+                lineStart = Math.min(lineStart, scanner.timestampAt(i));
+            }
+            for (int w = 0; w < wordCount; w++) {
+                state.addWord(scanner.wordTimeAt(w) - lineStart, scanner.wordStartAt(w), scanner.wordLengthAt(w));
+            }
+        }
+        for (int i = 0; i < timestampCount; i++) {
+            if (wordCount > 0) {
+                state.setLineWords(state.lyricLines.size(), firstWord, wordCount);
+            }
+            state.lyricLines.add(new LyricLine(scanner.timestampAt(i), state.textPool.share(lyricText)));
+        }
+    }
+
+    /** Records each time tag the scanner rejected on the current line. */
+    private static void recordInvalidTimeTags(LrcTagScanner scanner, DocumentState state) {
+        for (int i = scanner.invalidTimeTagCount(); i > 0; i--) {
+            state.diagnostics.record(ParseDiagnostics.Kind.INVALID_TIME_TAG, state.lineNumber);
+        }
+    }
+
+    /**
+     * Decodes a UTF-8 byte range of the mapped file through the state's reusable scratch buffer.
+     * Malformed input is replaced with U+FFFD.
+     */
+    private static String decode(ByteBuffer buf, int from, int to, DocumentState state) {
+        int length = to - from;
+        if (length <= 0) {
+            return "";
+        }
+        if (state.scratch.length < length) {
+            state.scratch = new byte[Math.max(length, state.scratch.length * 2)];
+        }
+        buf.get(from, state.scratch, 0, length);
+        return new String(state.scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stores the value of a recognized metadata tag in {@code state}.
+     *
+     * @param tag One of the {@code LrcTagScanner.TAG_*} identifiers.
+     * @param value The trimmed tag value.
+     * @param state The accumulator for the document being parsed.
+     */
+    private static void applyMetadata(int tag, String value, DocumentState state) {
+        switch (tag) {
+            case LrcTagScanner.TAG_TITLE:
+                state.title = value;
+                break;
+            case LrcTagScanner.TAG_ARTIST:
+                state.artist = value;
+                break;
+            case LrcTagScanner.TAG_ALBUM:
+                state.album = value;
+                break;
+            case LrcTagScanner.TAG_LENGTH:
+                Integer durationMillis = parseDurationValue(value);
+                if (durationMillis != null) {
+                    state.durationMillis = durationMillis;
+                } else {
+                    state.diagnostics.record(ParseDiagnostics.Kind.INVALID_DURATION, state.lineNumber);
+                }
+                break;
+            case LrcTagScanner.TAG_GENRE:
+                state.genre = value;
+                break;
+            case LrcTagScanner.TAG_OFFSET:
+                Long offsetMillis = parseOffsetValue(value);
+                if (offsetMillis != null) {
+                    state.offsetMillis = offsetMillis;
+                } else {
+                    state.diagnostics.record(ParseDiagnostics.Kind.INVALID_OFFSET, state.lineNumber);
+                }
+                break;
+            default:
+                break;
         }
     }
 
     /**
      * Parses the value string from an LRC {@code [length:value]} tag into total milliseconds.
      * The expected format for the value is "mm:ss" or "mm:ss.xx" (centiseconds) or "mm:ss.xxx" (milliseconds).
+     * A one-digit fraction is read as tenths of a second.
      *
      * @param value The raw time string (e.g., "03:45.12", "03:45.123", "03:45").
-     * @param contextFileName The name of the LRC file being parsed, for logging context.
-     * @return Duration in milliseconds as an {@link Integer}, or {@code null} if parsing fails,
-     *         the format is invalid, or the value represents an invalid time.
-     */
-    private static Integer parseDurationValue(String value, String contextFileName) {
-        // Regex for "mm:ss" or "mm:ss.cs" or "mm:ss.ms"
-        Pattern durationPattern = Pattern.compile("^(\\d{1,2}):(\\d{2})(?:[.:](\\d{1,3}))?$");
-        Matcher matcher = durationPattern.matcher(value.trim());
-
-        if (matcher.matches()) {
-            try {
-                long minutes = Long.parseLong(matcher.group(1));
-                long seconds = Long.parseLong(matcher.group(2));
-                long millis = 0;
-
-                String millisStr = matcher.group(3);
-                if (millisStr != null) {
-                    if (millisStr.length() > 3) { // Max 3 digits for ms
-                         System.err.println("Warning: Millisecond part too long in duration in " + contextFileName + ": " + value);
-                         return null;
-                    }
-                    millis = Long.parseLong(millisStr);
-                    if (millisStr.length() == 1) { // e.g., [00:00.1] -> 100ms
-                        millis *= 100;
-                    } else if (millisStr.length() == 2) { // e.g., [00:00.12] -> 120ms (centiseconds)
-                        millis *= 10;
-                    }
-                    // If length is 3, it's already milliseconds.
-                }
+     * @return Duration in milliseconds as an {@link Integer}, or {@code null} if the format is invalid
+     *         or the value represents an invalid time. The caller records the problem.
+     */
+    private static Integer parseDurationValue(String value) {
+        Matcher matcher = DURATION_PATTERN.matcher(value.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
 
-                if (minutes < 0 || seconds < 0 || seconds >= 60 || millis < 0 || millis >= 1000) {
-                    System.err.println("Warning: Invalid time components in duration in " + contextFileName + ": " + value);
-                    return null;
-                }
+        // The pattern guarantees 1-2 minute digits, 2 second digits and 1-3 fraction digits.
+        long minutes = Long.parseLong(matcher.group(1));
+        long seconds = Long.parseLong(matcher.group(2));
+        long millis = 0;
 
-                long totalMillis = (minutes * 60 + seconds) * 1000 + millis;
-                if (totalMillis > Integer.MAX_VALUE) {
-                    System.err.println("Warning: Duration value " + totalMillis + "ms exceeds Integer.MAX_VALUE in " + contextFileName + ": " + value);
-                    return null;
-                }
-                return (int) totalMillis;
-            } catch (NumberFormatException e) {
-                System.err.println("Warning: Could not parse numeric parts of duration in " + contextFileName + ": " + value + ". Error: " + e.getMessage());
-                return null;
+        String millisStr = matcher.group(3);
+        if (millisStr != null) {
+            millis = Long.parseLong(millisStr);
+            if (millisStr.length() == 1) { // e.g., [00:00.1] -> 100ms
+                millis *= 100;
+            } else if (millisStr.length() == 2) { // e.g., [00:00.12] -> 120ms (centiseconds)
+                millis *= 10;
             }
-        } else {
-            System.err.println("Warning: Duration format error in " + contextFileName + ". Expected mm:ss[.xxx], got: \"" + value + "\"");
-            return null;
+            // If length is 3, it's already milliseconds.
+        }
+
+        if (seconds >= 60) {
+            return null; // Invalid time components
         }
+        return (int) ((minutes * 60 + seconds) * 1000 + millis); // At most 99:59.999, well within int range
     }
 
     /**
      * Parses the value string from an LRC {@code [offset:value]} tag into milliseconds.
      *
      * @param value The raw offset value string (e.g., "200", "-150").
-     * @param contextFileName The name of the LRC file being parsed, for logging context.
-     * @return Offset in milliseconds as a {@link Long}, or {@code null} if parsing fails.
+     * @return Offset in milliseconds as a {@link Long}, or {@code null} if parsing fails. The caller records the problem.
      */
-    private static Long parseOffsetValue(String value, String contextFileName) {
+    private static Long parseOffsetValue(String value) {
         try {
             return Long.parseLong(value.trim());
         } catch (NumberFormatException e) {
-            System.err.println("Warning: Could not parse offset value in " + contextFileName + ": \"" + value + "\". Error: " + e.getMessage());
             return null;
         }
     }
-}
\ No newline at end of file
+}
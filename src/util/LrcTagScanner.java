@@ -0,0 +1,511 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Hand-written, allocation-light scanner for the tags found on a single LRC line.
+ * Used by {@link LrcParser} in place of regular expressions on the per-line hot path.
+ * <p>
+ * Recognizes exactly what the former patterns matched:
+ * <ul>
+ *   <li>Time tags anywhere on a line: {@code [mm:ss.xx]} or {@code [mm:ss.xxx]} (the separator before
+ *       the fraction may also be {@code ':'}); equivalent to {@code \[(\d{2}):(\d{2})[.:](\d{2,3})\]}
+ *       applied with repeated {@code find()}.</li>
+ *   <li>Whole-line metadata tags: {@code [ti:...]}, {@code [ar:...]}, {@code [al:...]}, {@code [length:...]},
+ *       {@code [genre:...]} and {@code [offset:...]}, keys matched ignoring ASCII case; equivalent to
+ *       {@code ^\[(ti|ar|al|length|genre|offset):(.*)\]\s*$} on a trimmed line.</li>
+ *   <li>Enhanced-LRC word tags {@code <mm:ss.xx>} / {@code <mm:ss.xxx>} inside the lyric text, which are
+ *       stripped from the text and reported as per-word times and extents.</li>
+ * </ul>
+ * Timestamps are written into a reusable primitive buffer, and tag/value positions are reported as
+ * indices into the scanned line, so no {@code Matcher}, boxed {@code Long} or intermediate substring is
+ * created per line. An instance keeps per-line state and is therefore not thread-safe; use one per parse.
+ * <p>
+ * Each scan has a byte-level twin operating directly on UTF-8 bytes in a {@link ByteBuffer}
+ * (see {@link LrcParser#parseDocumentMapped(java.nio.file.Path)}). All tag syntax is ASCII, so tags are
+ * located without decoding; positions are then absolute buffer indices instead of string indices.
+ */
+final class LrcTagScanner {
+
+    // Metadata tag identifiers returned by scanMetadataTag(String).
+    static final int TAG_NONE = -1;
+    static final int TAG_TITLE = 0;     // [ti:...]
+    static final int TAG_ARTIST = 1;    // [ar:...]
+    static final int TAG_ALBUM = 2;     // [al:...]
+    static final int TAG_LENGTH = 3;    // [length:...]
+    static final int TAG_GENRE = 4;     // [genre:...]
+    static final int TAG_OFFSET = 5;    // [offset:...]
+
+    private long[] timestamps = new long[4]; // Valid timestamps of the last scanned line, in tag order
+    private int timestampCount;             // Number of valid entries in 'timestamps'
+    private int invalidTimeTagCount;        // Time tags of the last scanned line rejected for invalid components
+    private int textStart;                  // Index just past the last valid time tag
+    private long[] wordTimes = new long[8];  // Word tag times of the last stripped text, in tag order
+    private int[] wordStarts = new int[8];   // Start of each word in the stripped text
+    private int[] wordLengths = new int[8];  // Length of each word, without trailing whitespace
+    private int wordCount;                   // Number of valid entries in the word arrays
+    private int invalidWordTagCount;         // Word tags of the last stripped text rejected for invalid components
+    private int valueStart;                 // Start index of the last matched metadata value
+    private int valueEnd;                   // End index (exclusive) of the last matched metadata value
+
+    /**
+     * Scans a trimmed LRC line for time tags, from left to right, without overlapping matches.
+     * Each syntactically matching tag with valid components (seconds below 60) is appended to the
+     * timestamp buffer; a matching tag with invalid components is skipped and counted
+     * (see {@link #invalidTimeTagCount()}).
+     *
+     * @param line The trimmed line content.
+     * @return The number of valid timestamps found; 0 if the line holds no valid time tag.
+     *         The timestamps are available through {@link #timestampAt(int)}, and the lyric text starts
+     *         at {@link #textStart()}.
+     */
+    int scanTimeTags(String line) {
+        timestampCount = 0;
+        invalidTimeTagCount = 0;
+        textStart = 0;
+        int length = line.length();
+        int i = line.indexOf('[');
+        while (i >= 0 && i + 10 <= length) {
+            int end = matchTimeTagAt(line, i, length, ']');
+            if (end < 0) {
+                i = line.indexOf('[', i + 1);
+                continue;
+            }
+            long minutes = digit(line, i + 1) * 10 + digit(line, i + 2);
+            long seconds = digit(line, i + 4) * 10 + digit(line, i + 5);
+            long fraction = digit(line, i + 7) * 10 + digit(line, i + 8);
+            if (end - i == 11) { // Three fraction digits: milliseconds
+                fraction = fraction * 10 + digit(line, i + 9);
+            } else {             // Two fraction digits: centiseconds
+                fraction *= 10;
+            }
+
+            if (seconds >= 60) {
+                invalidTimeTagCount++;
+            } else {
+                appendTimestamp((minutes * 60 + seconds) * 1000 + fraction);
+                textStart = end;
+            }
+            i = line.indexOf('[', end);
+        }
+        return timestampCount;
+    }
+
+    /**
+     * @param index The index of the timestamp, between 0 and the last value returned by {@link #scanTimeTags(String)}.
+     * @return The timestamp in milliseconds at the given index.
+     */
+    long timestampAt(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * @return The number of time tags in the last scanned line that matched the tag syntax
+     *         but had invalid components (seconds of 60 or more), and were therefore skipped.
+     */
+    int invalidTimeTagCount() {
+        return invalidTimeTagCount;
+    }
+
+    /**
+     * @return The index in the last scanned line just past its last valid time tag,
+     *         i.e. where the (untrimmed) lyric text begins.
+     */
+    int textStart() {
+        return textStart;
+    }
+
+    /**
+     * Removes enhanced-LRC word tags ({@code <mm:ss.xx>} or {@code <mm:ss.xxx>}) from the lyric text of a timed line
+     * and records the time and extent of the word that follows each of them.
+     * <p>
+     * A word runs from its tag to the next word tag (or the end of the text), without trailing whitespace;
+     * a tag at the very end yields an empty word that marks when the previous word ends. Text before the first
+     * word tag belongs to no word. Tags with invalid components (seconds of 60 or more) are removed and counted
+     * (see {@link #invalidWordTagCount()}). The result is trimmed, and word positions refer to the trimmed result.
+     *
+     * @param text The trimmed lyric text of a timed line.
+     * @return The text without word tags; {@code text} itself if it contains no word tag.
+     *         The words are available through {@link #wordCount()} and the {@code word*At} accessors.
+     */
+    String stripWordTags(String text) {
+        wordCount = 0;
+        invalidWordTagCount = 0;
+        int length = text.length();
+        int i = text.indexOf('<');
+        StringBuilder clean = null; // Allocated on the first word tag only
+        int copyFrom = 0;
+        while (i >= 0 && i + 10 <= length) {
+            int end = matchTimeTagAt(text, i, length, '>');
+            if (end < 0) {
+                i = text.indexOf('<', i + 1);
+                continue;
+            }
+            if (clean == null) {
+                clean = new StringBuilder(length);
+            }
+            clean.append(text, copyFrom, i);
+            copyFrom = end;
+
+            long seconds = digit(text, i + 4) * 10 + digit(text, i + 5);
+            if (seconds >= 60) {
+                invalidWordTagCount++;
+            } else {
+                long minutes = digit(text, i + 1) * 10 + digit(text, i + 2);
+                long fraction = digit(text, i + 7) * 10 + digit(text, i + 8);
+                fraction = (end - i == 11) ? fraction * 10 + digit(text, i + 9) : fraction * 10;
+                appendWord((minutes * 60 + seconds) * 1000 + fraction, clean.length());
+            }
+            i = text.indexOf('<', end);
+        }
+        if (clean == null) {
+            return text;
+        }
+        clean.append(text, copyFrom, length);
+
+        // Trim the result and express word extents relative to it.
+        int start = 0;
+        int stop = clean.length();
+        while (start < stop && clean.charAt(start) <= ' ') {
+            start++;
+        }
+        while (stop > start && clean.charAt(stop - 1) <= ' ') {
+            stop--;
+        }
+        String result = clean.substring(start, stop);
+        int resultLength = result.length();
+        for (int w = 0; w < wordCount; w++) {
+            int wordEnd = (w + 1 < wordCount) ? wordStarts[w + 1] : clean.length();
+            int from = Math.min(Math.max(wordStarts[w] - start, 0), resultLength);
+            int to = Math.min(Math.max(wordEnd - start, 0), resultLength);
+            while (to > from && result.charAt(to - 1) <= ' ') {
+                to--;
+            }
+            wordStarts[w] = from;
+            wordLengths[w] = to - from;
+        }
+        return result;
+    }
+
+    /** @return The number of words found by the last {@link #stripWordTags(String)}. */
+    int wordCount() {
+        return wordCount;
+    }
+
+    /**
+     * @param index The index of a word found by the last {@link #stripWordTags(String)}.
+     * @return The time in milliseconds given by the word's tag.
+     */
+    long wordTimeAt(int index) {
+        return wordTimes[index];
+    }
+
+    /**
+     * @param index The index of a word found by the last {@link #stripWordTags(String)}.
+     * @return The start of the word in the stripped text.
+     */
+    int wordStartAt(int index) {
+        return wordStarts[index];
+    }
+
+    /**
+     * @param index The index of a word found by the last {@link #stripWordTags(String)}.
+     * @return The length of the word in the stripped text, 0 for an end marker.
+     */
+    int wordLengthAt(int index) {
+        return wordLengths[index];
+    }
+
+    /**
+     * @return The number of word tags in the last stripped text that matched the tag syntax
+     *         but had invalid components, and were therefore removed without starting a word.
+     */
+    int invalidWordTagCount() {
+        return invalidWordTagCount;
+    }
+
+    /**
+     * Checks whether a trimmed LRC line is one of the recognized metadata tags.
+     *
+     * @param line The trimmed line content.
+     * @return One of the {@code TAG_*} identifiers, or {@link #TAG_NONE} if the line is not a recognized
+     *         metadata tag. On a match the raw (untrimmed) value spans
+     *         {@link #valueStart()} to {@link #valueEnd()}.
+     */
+    int scanMetadataTag(String line) {
+        int length = line.length();
+        if (length < 4 || line.charAt(0) != '[' || line.charAt(length - 1) != ']') {
+            return TAG_NONE;
+        }
+
+        int tag;
+        int keyLength;
+        switch (line.charAt(1) | 0x20) {
+            case 't':
+                tag = TAG_TITLE; keyLength = matchKey(line, "ti"); break;
+            case 'a':
+                tag = TAG_ARTIST; keyLength = matchKey(line, "ar");
+                if (keyLength < 0) { tag = TAG_ALBUM; keyLength = matchKey(line, "al"); }
+                break;
+            case 'l':
+                tag = TAG_LENGTH; keyLength = matchKey(line, "length"); break;
+            case 'g':
+                tag = TAG_GENRE; keyLength = matchKey(line, "genre"); break;
+            case 'o':
+                tag = TAG_OFFSET; keyLength = matchKey(line, "offset"); break;
+            default:
+                return TAG_NONE;
+        }
+        if (keyLength < 0) {
+            return TAG_NONE;
+        }
+
+        int start = keyLength + 2;  // Past '[', the key and ':'
+        int end = length - 1;       // Before the closing ']'
+        if (start > end) {
+            return TAG_NONE;
+        }
+        // The former pattern's '.' did not match line terminators that can survive readLine().
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return TAG_NONE;
+            }
+        }
+        valueStart = start;
+        valueEnd = end;
+        return tag;
+    }
+
+    /**
+     * Byte-level twin of {@link #scanTimeTags(String)} for a trimmed line of UTF-8 bytes.
+     *
+     * @param buf  The buffer holding the line; read with absolute gets only.
+     * @param from The index of the first byte of the trimmed line.
+     * @param to   The index just past the last byte of the trimmed line.
+     * @return The number of valid timestamps found; the lyric text starts at the absolute index {@link #textStart()}.
+     */
+    int scanTimeTags(ByteBuffer buf, int from, int to) {
+        timestampCount = 0;
+        invalidTimeTagCount = 0;
+        textStart = from;
+        int i = indexOf(buf, '[', from, to);
+        while (i >= 0 && i + 10 <= to) {
+            int end = matchTimeTagAt(buf, i, to);
+            if (end < 0) {
+                i = indexOf(buf, '[', i + 1, to);
+                continue;
+            }
+            long minutes = digit(buf, i + 1) * 10 + digit(buf, i + 2);
+            long seconds = digit(buf, i + 4) * 10 + digit(buf, i + 5);
+            long fraction = digit(buf, i + 7) * 10 + digit(buf, i + 8);
+            if (end - i == 11) { // Three fraction digits: milliseconds
+                fraction = fraction * 10 + digit(buf, i + 9);
+            } else {             // Two fraction digits: centiseconds
+                fraction *= 10;
+            }
+
+            if (seconds >= 60) {
+                invalidTimeTagCount++;
+            } else {
+                appendTimestamp((minutes * 60 + seconds) * 1000 + fraction);
+                textStart = end;
+            }
+            i = indexOf(buf, '[', end, to);
+        }
+        return timestampCount;
+    }
+
+    /**
+     * Byte-level twin of {@link #scanMetadataTag(String)} for a trimmed line of UTF-8 bytes.
+     *
+     * @param buf  The buffer holding the line; read with absolute gets only.
+     * @param from The index of the first byte of the trimmed line.
+     * @param to   The index just past the last byte of the trimmed line.
+     * @return One of the {@code TAG_*} identifiers, or {@link #TAG_NONE}. On a match the raw value spans the
+     *         absolute indices {@link #valueStart()} to {@link #valueEnd()}.
+     */
+    int scanMetadataTag(ByteBuffer buf, int from, int to) {
+        int length = to - from;
+        if (length < 4 || buf.get(from) != '[' || buf.get(to - 1) != ']') {
+            return TAG_NONE;
+        }
+
+        int tag;
+        int keyLength;
+        switch (buf.get(from + 1) | 0x20) {
+            case 't':
+                tag = TAG_TITLE; keyLength = matchKey(buf, from, to, "ti"); break;
+            case 'a':
+                tag = TAG_ARTIST; keyLength = matchKey(buf, from, to, "ar");
+                if (keyLength < 0) { tag = TAG_ALBUM; keyLength = matchKey(buf, from, to, "al"); }
+                break;
+            case 'l':
+                tag = TAG_LENGTH; keyLength = matchKey(buf, from, to, "length"); break;
+            case 'g':
+                tag = TAG_GENRE; keyLength = matchKey(buf, from, to, "genre"); break;
+            case 'o':
+                tag = TAG_OFFSET; keyLength = matchKey(buf, from, to, "offset"); break;
+            default:
+                return TAG_NONE;
+        }
+        if (keyLength < 0) {
+            return TAG_NONE;
+        }
+
+        int start = from + keyLength + 2;   // Past '[', the key and ':'
+        int end = to - 1;                   // Before the closing ']'
+        if (start > end) {
+            return TAG_NONE;
+        }
+        // U+0085 (C2 85), U+2028 (E2 80 A8) and U+2029 (E2 80 A9) were not matched by the former pattern's '.'.
+        for (int i = start; i < end - 1; i++) {
+            byte b = buf.get(i);
+            if (b == (byte) 0xC2 && buf.get(i + 1) == (byte) 0x85) {
+                return TAG_NONE;
+            }
+            if (b == (byte) 0xE2 && i + 2 < end && buf.get(i + 1) == (byte) 0x80
+                    && (buf.get(i + 2) == (byte) 0xA8 || buf.get(i + 2) == (byte) 0xA9)) {
+                return TAG_NONE;
+            }
+        }
+        valueStart = start;
+        valueEnd = end;
+        return tag;
+    }
+
+    /** @return The start index of the value of the last matched metadata tag. */
+    int valueStart() {
+        return valueStart;
+    }
+
+    /** @return The end index (exclusive) of the value of the last matched metadata tag. */
+    int valueEnd() {
+        return valueEnd;
+    }
+
+    // --- Private Helpers ---
+
+    /**
+     * Checks whether a time tag starts at {@code i} (which must hold {@code '['}).
+     *
+     * @return The index just past the closing {@code ']'}, or -1 if no time tag starts there.
+     */
+    private static int matchTimeTagAt(String line, int i, int length, char close) {
+        if (!isDigit(line.charAt(i + 1)) || !isDigit(line.charAt(i + 2)) || line.charAt(i + 3) != ':'
+                || !isDigit(line.charAt(i + 4)) || !isDigit(line.charAt(i + 5))) {
+            return -1;
+        }
+        char separator = line.charAt(i + 6);
+        if ((separator != '.' && separator != ':') || !isDigit(line.charAt(i + 7)) || !isDigit(line.charAt(i + 8))) {
+            return -1;
+        }
+        char c = line.charAt(i + 9);
+        if (c == close) {
+            return i + 10;
+        }
+        if (isDigit(c) && i + 11 <= length && line.charAt(i + 10) == close) {
+            return i + 11;
+        }
+        return -1;
+    }
+
+    /**
+     * Matches {@code key} (lower-case ASCII letters) case-insensitively right after the opening
+     * {@code '['}, followed by a {@code ':'}.
+     *
+     * @return The key length on a match, or -1 otherwise.
+     */
+    private static int matchKey(String line, String key) {
+        int keyLength = key.length();
+        if (line.length() < keyLength + 3 || line.charAt(keyLength + 1) != ':') {
+            return -1;
+        }
+        for (int k = 0; k < keyLength; k++) {
+            if ((line.charAt(k + 1) | 0x20) != key.charAt(k)) {
+                return -1;
+            }
+        }
+        return keyLength;
+    }
+
+    /** Byte-level twin of {@link #matchTimeTagAt(String, int, int, char)} for {@code ']'}. */
+    private static int matchTimeTagAt(ByteBuffer buf, int i, int to) {
+        if (!isDigit(buf.get(i + 1)) || !isDigit(buf.get(i + 2)) || buf.get(i + 3) != ':'
+                || !isDigit(buf.get(i + 4)) || !isDigit(buf.get(i + 5))) {
+            return -1;
+        }
+        byte separator = buf.get(i + 6);
+        if ((separator != '.' && separator != ':') || !isDigit(buf.get(i + 7)) || !isDigit(buf.get(i + 8))) {
+            return -1;
+        }
+        byte b = buf.get(i + 9);
+        if (b == ']') {
+            return i + 10;
+        }
+        if (isDigit(b) && i + 11 <= to && buf.get(i + 10) == ']') {
+            return i + 11;
+        }
+        return -1;
+    }
+
+    /** Byte-level twin of {@link #matchKey(String, String)}. */
+    private static int matchKey(ByteBuffer buf, int from, int to, String key) {
+        int keyLength = key.length();
+        if (to - from < keyLength + 3 || buf.get(from + keyLength + 1) != ':') {
+            return -1;
+        }
+        for (int k = 0; k < keyLength; k++) {
+            if ((buf.get(from + k + 1) | 0x20) != key.charAt(k)) {
+                return -1;
+            }
+        }
+        return keyLength;
+    }
+
+    private static int indexOf(ByteBuffer buf, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void appendWord(long millis, int start) {
+        if (wordCount == wordTimes.length) {
+            wordTimes = Arrays.copyOf(wordTimes, wordCount * 2);
+            wordStarts = Arrays.copyOf(wordStarts, wordCount * 2);
+            wordLengths = Arrays.copyOf(wordLengths, wordCount * 2);
+        }
+        wordTimes[wordCount] = millis;
+        wordStarts[wordCount] = start;
+        wordCount++;
+    }
+
+    private void appendTimestamp(long millis) {
+        if (timestampCount == timestamps.length) {
+            long[] grown = new long[timestamps.length * 2];
+            System.arraycopy(timestamps, 0, grown, 0, timestampCount);
+            timestamps = grown;
+        }
+        timestamps[timestampCount++] = millis;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static long digit(String line, int index) {
+        return line.charAt(index) - '0';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static long digit(ByteBuffer buf, int index) {
+        return buf.get(index) - '0';
+    }
+}
@@ -3,7 +3,11 @@ package util;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -17,6 +21,7 @@ import java.util.regex.Pattern;
  * back to LRC (.lrc) files using the {@code [offset:...]} tag.
  * This class handles reading an LRC file, updating or adding the offset tag,
  * and writing the changes back to the file atomically.
+ * The file is rewritten in its original encoding, keeping any byte order mark.
  * <p>
  * Supports SRS FR3.7: Persist lyrics timing adjustment.
  */
@@ -38,6 +43,19 @@ public final class LrcWriter {
      * @throws IOException If an I/O error occurs during file reading or writing.
      */
     public static void saveOffsetToLrcFile(String filePath, long offsetToSaveMillis) throws IOException {
+        saveOffsetToLrcFile(filePath, offsetToSaveMillis, null);
+    }
+
+    /**
+     * Saves or updates the timing offset like {@link #saveOffsetToLrcFile(String, long)}, reading and writing the
+     * file in the given charset (e.g., the one its lyrics were decoded with) instead of detecting it.
+     *
+     * @param filePath The absolute path to the .lrc file.
+     * @param offsetToSaveMillis The offset in milliseconds to save.
+     * @param charset The charset of the file, or {@code null} to detect it with {@link CharsetDetector}.
+     * @throws IOException If an I/O error occurs during file reading or writing.
+     */
+    public static void saveOffsetToLrcFile(String filePath, long offsetToSaveMillis, Charset charset) throws IOException {
         if (filePath == null || filePath.isBlank()) {
             System.err.println("LrcWriter: Cannot save offset, file path is null or empty.");
             return;
@@ -53,7 +71,14 @@ public final class LrcWriter {
         boolean offsetTagFound = false;
         String newOffsetLine = OFFSET_TAG_PREFIX + offsetToSaveMillis + "]";
 
-        try (BufferedReader reader = Files.newBufferedReader(lrcFile, StandardCharsets.UTF_8)) {
+        // Read and decode the file once, in its own encoding; the BOM (if any) is carried over as raw bytes.
+        byte[] bytes = Files.readAllBytes(lrcFile);
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        Charset fileCharset = (charset != null) ? charset : CharsetDetector.detect(buf, 0, bytes.length);
+        int bom = CharsetDetector.bomLength(buf, 0, bytes.length, fileCharset);
+        String content = new String(bytes, bom, bytes.length - bom, fileCharset);
+
+        try (BufferedReader reader = new BufferedReader(new StringReader(content))) {
             String currentLine;
             while ((currentLine = reader.readLine()) != null) {
                 if (OFFSET_TAG_PATTERN.matcher(currentLine.trim()).matches()) {
@@ -86,7 +111,9 @@ public final class LrcWriter {
         Path tempFile = null;
         try {
             tempFile = Files.createTempFile(lrcFile.getParent(), lrcFile.getFileName().toString(), ".tmp");
-            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            try (OutputStream out = Files.newOutputStream(tempFile);
+                 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, fileCharset))) {
+                out.write(bytes, 0, bom);
                 for (int i = 0; i < lines.size(); i++) {
                     writer.write(lines.get(i));
                     if (i < lines.size() - 1) {
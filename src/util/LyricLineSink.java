@@ -0,0 +1,44 @@
+package util;
+
+import model.LyricLine;
+
+/**
+ * Receives the results of a streaming parse started with
+ * {@link LrcParser#streamLyrics(String, int, LyricLineSink)} as they become available,
+ * instead of waiting for the whole file to be read and sorted.
+ * <p>
+ * All methods are called on the thread running the parse, in file order. Lines are delivered
+ * in timestamp order as far as the parser's reorder window allows; see {@link #onComplete(boolean)}.
+ * Supports SRS FR3.1 and FR3.2 (Parse LRC files, timestamps and text).
+ */
+@FunctionalInterface
+public interface LyricLineSink {
+
+    /**
+     * Called for each timed lyric line, once it has left the reorder window.
+     *
+     * @param line The parsed lyric line.
+     */
+    void onLine(LyricLine line);
+
+    /**
+     * Called when a valid {@code [offset:...]} tag changes the global offset. If a file has several
+     * offset tags, each change is reported and the last value wins, as in a full parse.
+     *
+     * @param offsetMillis The global offset in milliseconds.
+     */
+    default void onOffset(long offsetMillis) {
+        // Ignored by default
+    }
+
+    /**
+     * Called once after the last line has been delivered.
+     *
+     * @param ordered {@code true} if every line was delivered in timestamp order, i.e. the delivered
+     *                sequence equals the result of a full parse; {@code false} if some line arrived later
+     *                than the reorder window could absorb and was delivered out of order.
+     */
+    default void onComplete(boolean ordered) {
+        // Ignored by default
+    }
+}
@@ -0,0 +1,99 @@
+package util;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A dictionary of lyric texts that makes equal texts share a single {@link String} instance.
+ * <p>
+ * Song lyrics repeat heavily: a chorus, or a line such as "oh oh oh", can occur dozens of times in one file,
+ * and each occurrence would otherwise be decoded into its own {@code String}. A pool is filled while one file
+ * is parsed (or loaded from {@link LyricsBinaryCache}), so every repeated line of that song refers to the first
+ * instance. When {@link #setLibraryWide(boolean) library-wide sharing} is enabled, each distinct text is also
+ * interned in the JVM string table, so identical lines of different songs (e.g., the lyrics of the queue and of
+ * recently played songs kept in memory) share one instance too; interned strings are still garbage collected
+ * once no song refers to them.
+ * <p>
+ * The pool counts its lookups, so the deduplication achieved for a file can be reported
+ * (see {@link #getDedupRatio()}). Instances are not thread-safe; each parse uses its own.
+ * Supports SRS FR3.1 (Parse LRC files for lyrics).
+ */
+public final class LyricTextPool {
+
+    private static volatile boolean libraryWide; // Whether distinct texts are also interned JVM-wide
+
+    private final Map<String, String> texts = new HashMap<>();
+    private int lookupCount;                     // Texts passed to share()
+    private long sharedCharCount;                // Characters of texts replaced by an already pooled instance
+
+    /**
+     * Returns the pooled instance equal to {@code text}, adding {@code text} to the pool if it is new.
+     *
+     * @param text The decoded lyric text. May be {@code null}, which is returned unchanged and not counted.
+     * @return An instance equal to {@code text} that is shared by all equal texts of this pool.
+     */
+    public String share(String text) {
+        if (text == null) {
+            return null;
+        }
+        lookupCount++;
+        String pooled = texts.get(text);
+        if (pooled != null) {
+            if (pooled != text) {
+                sharedCharCount += text.length();
+            }
+            return pooled;
+        }
+        pooled = libraryWide ? text.intern() : text;
+        texts.put(pooled, pooled);
+        return pooled;
+    }
+
+    // --- Statistics ---
+
+    /** @return The number of texts passed to {@link #share(String)}. */
+    public int getLookupCount() { return lookupCount; }
+
+    /** @return The number of distinct texts in the pool. */
+    public int getDistinctCount() { return texts.size(); }
+
+    /** @return The total length, in characters, of the texts that were replaced by an already pooled instance. */
+    public long getSharedCharCount() { return sharedCharCount; }
+
+    /**
+     * @return The number of lookups per distinct text, e.g. 3.0 if every text occurred three times on average;
+     *         1.0 if nothing was shared or the pool is empty.
+     */
+    public double getDedupRatio() {
+        return texts.isEmpty() ? 1.0 : (double) lookupCount / texts.size();
+    }
+
+    /**
+     * Returns a one-line summary of the pool, e.g. {@code "64 texts, 21 distinct (3.05x), 1480 chars shared"}.
+     *
+     * @return A string summary of this {@code LyricTextPool}.
+     */
+    @Override
+    public String toString() {
+        return lookupCount + " texts, " + texts.size() + " distinct ("
+               + String.format(Locale.ROOT, "%.2fx", getDedupRatio()) + "), " + sharedCharCount + " chars shared";
+    }
+
+    // --- Configuration ---
+
+    /**
+     * Enables or disables sharing of equal texts across songs. Affects pools used by parses started afterwards.
+     * Disabled by default.
+     *
+     * @param enabled {@code true} to intern every distinct text in the JVM string table.
+     */
+    public static void setLibraryWide(boolean enabled) {
+        libraryWide = enabled;
+    }
+
+    /** @return {@code true} if equal texts are shared across songs, see {@link #setLibraryWide(boolean)}. */
+    public static boolean isLibraryWide() {
+        return libraryWide;
+    }
+}
@@ -0,0 +1,358 @@
+package util;
+
+import model.LrcDocument;
+import model.LyricLine;
+import model.WordTimeline;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * A non-instantiable utility class that keeps a compiled binary form (.lrcb) of parsed LRC files
+ * in a cache directory, so lyrics can be loaded on song change without re-parsing the text file.
+ * <p>
+ * Each entry is stored under a file name derived from the absolute path of its .lrc file, and records
+ * the size and modification time of that file; an entry whose source has since changed (for example,
+ * after {@link LrcWriter} saved a new offset) is treated as stale and rebuilt.
+ * An entry is loaded with a single memory mapping. Layout (big-endian):
+ * <pre>
+ *   int    magic ("LRCB"), int version
+ *   long   source size, long source modification time (ms)
+ *   int    flags (bit 0: offset present, bit 1: duration present, bit 2: word timing present)
+ *   long   offset (ms), int duration (ms), int line count (n)
+ *   string source path, title, artist, album, genre, source charset
+ *          (each: int byte length or -1 for null, then UTF-8 bytes)
+ *   long[n]   line timestamps (ms)
+ *   int[n+1]  line text boundaries within the text blob
+ *   byte[]    UTF-8 text blob
+ *   if word timing is present (see {@link WordTimeline}):
+ *   int       word count (w), int[n] first word per line, int[n] word count per line
+ *   long[w]   word times (ms, relative to the line), int[w] word starts, int[w] word lengths
+ * </pre>
+ * Supports SRS FR3.1 (Parse LRC files) by serving previously parsed results.
+ */
+public final class LyricsBinaryCache {
+
+    // Directory (relative to the working directory, like the songs folder) holding the .lrcb entries.
+    private static final String CACHE_DIRECTORY = "cache/lyrics";
+    private static final String CACHE_FILE_EXTENSION = ".lrcb";
+
+    private static final int MAGIC = 0x4C524342; // "LRCB"
+    private static final int FORMAT_VERSION = 3; // 2: source charset added, 3: word timing added
+
+    private static final int FLAG_HAS_OFFSET = 1;
+    private static final int FLAG_HAS_DURATION = 1 << 1;
+    private static final int FLAG_HAS_WORDS = 1 << 2;
+
+    private LyricsBinaryCache() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Returns the parsed document for the given LRC file, from the cache if a fresh entry exists,
+     * otherwise by parsing the file with {@link LrcParser#parseDocument(String)} and storing the result.
+     * Cache failures are logged and never prevent the file from being parsed.
+     *
+     * @param lrcPath The path to the .lrc file.
+     * @return The {@link LrcDocument} of the file.
+     * @throws IOException If the .lrc file itself cannot be read or parsed.
+     */
+    public static LrcDocument loadOrParse(Path lrcPath) throws IOException {
+        return loadOrParse(lrcPath, null);
+    }
+
+    /**
+     * Returns the parsed document for the given LRC file like {@link #loadOrParse(Path)}, decoding the file
+     * with a known charset if it has to be parsed.
+     *
+     * @param lrcPath The path to the .lrc file.
+     * @param charsetHint The charset of the file (e.g., stored with the song), or {@code null} to detect it.
+     * @return The {@link LrcDocument} of the file.
+     * @throws IOException If the .lrc file itself cannot be read or parsed.
+     */
+    public static LrcDocument loadOrParse(Path lrcPath, Charset charsetHint) throws IOException {
+        return loadOrParse(lrcPath, charsetHint, null);
+    }
+
+    /**
+     * Returns the parsed document for the given LRC file like {@link #loadOrParse(Path, Charset)}. If the file has
+     * to be parsed, its lines are also pushed to {@code sink} while it is read, see
+     * {@link LrcParser#parseDocument(String, int, Charset, LyricLineSink)}; a document served from the cache is
+     * returned without calling the sink.
+     *
+     * @param lrcPath The path to the .lrc file.
+     * @param charsetHint The charset of the file (e.g., stored with the song), or {@code null} to detect it.
+     * @param sink The receiver of the lines of a text parse, or {@code null} if none.
+     * @return The {@link LrcDocument} of the file.
+     * @throws IOException If the .lrc file itself cannot be read or parsed.
+     */
+    public static LrcDocument loadOrParse(Path lrcPath, Charset charsetHint, LyricLineSink sink) throws IOException {
+        Path source = lrcPath.toAbsolutePath().normalize();
+        // Read the source attributes before parsing: if the file changes during the parse,
+        // the entry is keyed to the old version and will be rebuilt on the next load.
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+
+        LrcDocument cached = load(source, attributes);
+        if (cached != null) {
+            return cached;
+        }
+
+        LrcDocument document = (sink != null)
+                ? LrcParser.parseDocument(source.toString(), LrcParser.DEFAULT_REORDER_WINDOW, charsetHint, sink)
+                : LrcParser.parseDocument(source.toString(), LrcParser.ScanMode.FULL, charsetHint);
+        store(source, attributes, document);
+        return document;
+    }
+
+    /**
+     * Loads the cached document for the given LRC file if a fresh entry exists.
+     *
+     * @param lrcPath The path to the .lrc file.
+     * @return The cached {@link LrcDocument}, or {@code null} if there is no entry, or it is stale or unreadable.
+     * @throws IOException If the attributes of the .lrc file cannot be read.
+     */
+    public static LrcDocument load(Path lrcPath) throws IOException {
+        Path source = lrcPath.toAbsolutePath().normalize();
+        return load(source, Files.readAttributes(source, BasicFileAttributes.class));
+    }
+
+    /**
+     * Deletes the cache entry of the given LRC file, if any.
+     *
+     * @param lrcPath The path to the .lrc file.
+     */
+    public static void invalidate(Path lrcPath) {
+        Path entry = entryPathFor(lrcPath.toAbsolutePath().normalize());
+        try {
+            Files.deleteIfExists(entry);
+        } catch (IOException e) {
+            System.err.println("LyricsBinaryCache: Could not delete cache entry " + entry + ": " + e.getMessage());
+        }
+    }
+
+    private static LrcDocument load(Path source, BasicFileAttributes attributes) {
+        Path entry = entryPathFor(source);
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ);
+             Arena arena = Arena.ofConfined()) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena).asByteBuffer();
+
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION) {
+                return null; // Foreign or outdated entry; it will be overwritten.
+            }
+            if (buf.getLong() != attributes.size() || buf.getLong() != attributes.lastModifiedTime().toMillis()) {
+                return null; // Stale: the .lrc file changed since the entry was written.
+            }
+            int flags = buf.getInt();
+            long offset = buf.getLong();
+            int duration = buf.getInt();
+            int lineCount = buf.getInt();
+            if (!source.toString().equals(getString(buf))) {
+                return null; // Hash collision with another path.
+            }
+            String title = getString(buf);
+            String artist = getString(buf);
+            String album = getString(buf);
+            String genre = getString(buf);
+            Charset charset = CharsetDetector.forNameOrNull(getString(buf));
+
+            int timestampsAt = buf.position();
+            int boundariesAt = timestampsAt + lineCount * Long.BYTES;
+            int blobAt = boundariesAt + (lineCount + 1) * Integer.BYTES;
+            byte[] blob = new byte[buf.getInt(boundariesAt + lineCount * Integer.BYTES)];
+            buf.get(blobAt, blob);
+
+            List<LyricLine> lines = new ArrayList<>(lineCount);
+            LyricTextPool textPool = new LyricTextPool(); // Repeated lines share one String, as after a text parse
+            for (int i = 0; i < lineCount; i++) {
+                int textStart = buf.getInt(boundariesAt + i * Integer.BYTES);
+                int textEnd = buf.getInt(boundariesAt + (i + 1) * Integer.BYTES);
+                String text = textPool.share(new String(blob, textStart, textEnd - textStart, StandardCharsets.UTF_8));
+                lines.add(new LyricLine(buf.getLong(timestampsAt + i * Long.BYTES), text));
+            }
+            buf.position(blobAt + blob.length);
+            WordTimeline words = ((flags & FLAG_HAS_WORDS) != 0) ? getWordTimeline(buf, lineCount) : null;
+
+            return new LrcDocument(title, artist, album, genre,
+                                   (flags & FLAG_HAS_DURATION) != 0 ? duration : null,
+                                   (flags & FLAG_HAS_OFFSET) != 0 ? offset : null,
+                                   lines, null, charset, words, textPool.toString());
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException
+                 | IllegalArgumentException | NegativeArraySizeException e) { // Truncated or corrupted entry
+            System.err.println("LyricsBinaryCache: Ignoring unreadable cache entry " + entry + ": " + e);
+            return null;
+        }
+    }
+
+    private static void store(Path source, BasicFileAttributes attributes, LrcDocument document) {
+        List<LyricLine> lines = document.getLines();
+        int lineCount = lines.size();
+
+        byte[][] texts = new byte[lineCount][];
+        int blobLength = 0;
+        for (int i = 0; i < lineCount; i++) {
+            texts[i] = lines.get(i).getText().getBytes(StandardCharsets.UTF_8);
+            blobLength += texts[i].length;
+        }
+        byte[][] strings = {
+                utf8(source.toString()), utf8(document.getTitle()), utf8(document.getArtist()),
+                utf8(document.getAlbum()), utf8(document.getGenre()),
+                utf8(document.getCharset() != null ? document.getCharset().name() : null)
+        };
+
+        WordTimeline words = document.getWordTimeline();
+        int size = 5 * Integer.BYTES + 3 * Long.BYTES  // Fixed header
+                   + lineCount * Long.BYTES + (lineCount + 1) * Integer.BYTES + blobLength;
+        if (!words.isEmpty()) {
+            size += Integer.BYTES + 2 * lineCount * Integer.BYTES
+                    + words.getWordCount() * (Long.BYTES + 2 * Integer.BYTES);
+        }
+        for (byte[] string : strings) {
+            size += Integer.BYTES + (string != null ? string.length : 0);
+        }
+
+        Long offset = document.getOffsetTagMillis();
+        Integer duration = document.getDurationMillis();
+        int flags = (offset != null ? FLAG_HAS_OFFSET : 0) | (duration != null ? FLAG_HAS_DURATION : 0)
+                    | (!words.isEmpty() ? FLAG_HAS_WORDS : 0);
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(MAGIC).putInt(FORMAT_VERSION);
+        buf.putLong(attributes.size()).putLong(attributes.lastModifiedTime().toMillis());
+        buf.putInt(flags).putLong(offset != null ? offset : 0L).putInt(duration != null ? duration : 0).putInt(lineCount);
+        for (byte[] string : strings) {
+            putString(buf, string);
+        }
+        for (LyricLine line : lines) {
+            buf.putLong(line.getTimestampMillis());
+        }
+        int boundary = 0;
+        buf.putInt(boundary);
+        for (byte[] text : texts) {
+            boundary += text.length;
+            buf.putInt(boundary);
+        }
+        for (byte[] text : texts) {
+            buf.put(text);
+        }
+        if (!words.isEmpty()) {
+            putWordTimeline(buf, words, lineCount);
+        }
+
+        Path entry = entryPathFor(source);
+        Path tempFile = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            tempFile = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp");
+            Files.write(tempFile, buf.array());
+            Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("LyricsBinaryCache: Could not write cache entry for " + source.getFileName() + ": " + e.getMessage());
+            if (tempFile != null) {
+                try { Files.deleteIfExists(tempFile); } catch (IOException cleanupEx) { /* ignore */ }
+            }
+        }
+    }
+
+    /**
+     * Derives the cache entry path of an .lrc file from a SHA-256 digest of its absolute path.
+     * The full path is also stored in the entry and checked on load.
+     */
+    private static Path entryPathFor(Path source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(utf8(source.toString()));
+            return Paths.get(CACHE_DIRECTORY, HexFormat.of().formatHex(digest, 0, 16) + CACHE_FILE_EXTENSION);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Mandatory in every Java platform
+        }
+    }
+
+    private static void putWordTimeline(ByteBuffer buf, WordTimeline words, int lineCount) {
+        int wordCount = words.getWordCount();
+        buf.putInt(wordCount);
+        for (int i = 0; i < lineCount; i++) {
+            buf.putInt(words.getFirstWordIndex(i));
+        }
+        for (int i = 0; i < lineCount; i++) {
+            buf.putInt(words.getWordCount(i));
+        }
+        for (int w = 0; w < wordCount; w++) {
+            buf.putLong(words.getWordTimeMillis(w));
+        }
+        for (int w = 0; w < wordCount; w++) {
+            buf.putInt(words.getWordStart(w));
+        }
+        for (int w = 0; w < wordCount; w++) {
+            buf.putInt(words.getWordLength(w));
+        }
+    }
+
+    private static WordTimeline getWordTimeline(ByteBuffer buf, int lineCount) {
+        int wordCount = buf.getInt();
+        int[] lineFirstWord = new int[lineCount];
+        int[] lineWordCount = new int[lineCount];
+        long[] wordTimes = new long[wordCount];
+        int[] wordStarts = new int[wordCount];
+        int[] wordLengths = new int[wordCount];
+        buf.asIntBuffer().get(lineFirstWord);
+        buf.position(buf.position() + lineCount * Integer.BYTES);
+        buf.asIntBuffer().get(lineWordCount);
+        buf.position(buf.position() + lineCount * Integer.BYTES);
+        buf.asLongBuffer().get(wordTimes);
+        buf.position(buf.position() + wordCount * Long.BYTES);
+        buf.asIntBuffer().get(wordStarts);
+        buf.position(buf.position() + wordCount * Integer.BYTES);
+        buf.asIntBuffer().get(wordLengths);
+        for (int i = 0; i < lineCount; i++) {
+            if (lineFirstWord[i] < 0 || lineWordCount[i] < 0 || lineFirstWord[i] + lineWordCount[i] > wordCount) {
+                throw new IllegalArgumentException("Word range of line " + i + " out of bounds");
+            }
+        }
+        return new WordTimeline(wordTimes, wordStarts, wordLengths, lineFirstWord, lineWordCount);
+    }
+
+    private static byte[] utf8(String value) {
+        return (value != null) ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void putString(ByteBuffer buf, byte[] string) {
+        if (string == null) {
+            buf.putInt(-1);
+        } else {
+            buf.putInt(string.length).put(string);
+        }
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
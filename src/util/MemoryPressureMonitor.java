@@ -0,0 +1,250 @@
+package util;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Watches the occupancy of the old generation of the heap and tells registered caches how much of their budget
+ * they may use, so that they shrink progressively when memory gets tight (instead of causing long garbage
+ * collections or an {@link OutOfMemoryError} on machines with small heaps) and grow back when it is plentiful again.
+ * <p>
+ * Occupancy is the live data left in the tenured {@link MemoryPoolMXBean} after the last collection, as a fraction
+ * of the pool's maximum size. It is compared with ascending watermarks (by default 70%, 80% and 90%); the number of
+ * watermarks exceeded is the pressure level. Each level halves the budget scale passed to the listeners
+ * (1.0, 0.5, 0.25, ...), and exceeding the highest watermark scales it to 0 (caches release everything).
+ * <p>
+ * A rise is detected promptly through the pool's collection-usage threshold notifications: the threshold is kept
+ * at the next watermark above the current level. Because thresholds only report crossings upwards, occupancy is also
+ * checked every {@link #CHECK_INTERVAL_MILLIS}, so the level drops again once occupancy has fallen
+ * {@link #HYSTERESIS} below a watermark. Listeners are called on the thread that detected the change, so they must
+ * be thread-safe. Notifications are serialized and always carry the scale current at delivery, so when the level
+ * changes on two threads at once, listeners never end on a stale scale.
+ * <p>
+ * Supports SRS non-functional requirements on resource usage by bounding the memory held by caches.
+ */
+public final class MemoryPressureMonitor {
+
+    /** Receives the budget scale of the current pressure level. */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called when the pressure level changes, and once on registration.
+         *
+         * @param budgetScale The fraction of its configured budget a cache may use, between 0 and 1.
+         */
+        void onBudgetScaleChanged(double budgetScale);
+    }
+
+    /** Default watermarks, as fractions of the old generation's maximum size. */
+    public static final double[] DEFAULT_WATERMARKS = {0.70, 0.80, 0.90};
+    /** How far below a watermark occupancy must fall before the level drops, as a fraction of the maximum size. */
+    public static final double HYSTERESIS = 0.05;
+    /** Interval of the periodic occupancy check, in milliseconds. */
+    public static final long CHECK_INTERVAL_MILLIS = 5_000;
+
+    private final double[] watermarks;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final NotificationListener thresholdListener = this::onNotification;
+    private final Object notificationLock = new Object(); // Serializes listener calls, separate from 'this'
+    private double notifiedScale = 1.0;    // Scale last passed to the listeners (guarded by 'notificationLock')
+    private MemoryPoolMXBean oldGen;       // Null if no suitable pool exists or the monitor is stopped
+    private boolean collectionThresholds;  // Whether 'oldGen' supports collection usage thresholds
+    private Thread checkThread;
+    private int level;                     // Number of watermarks exceeded
+
+    /**
+     * Constructs a monitor with the {@link #DEFAULT_WATERMARKS default} watermarks.
+     */
+    public MemoryPressureMonitor() {
+        this(DEFAULT_WATERMARKS);
+    }
+
+    /**
+     * Constructs a monitor. Call {@link #start()} to begin monitoring.
+     *
+     * @param watermarks Strictly ascending fractions of the old generation's maximum size, each in (0, 1].
+     * @throws IllegalArgumentException If the watermarks are empty, out of range or not strictly ascending.
+     */
+    public MemoryPressureMonitor(double[] watermarks) {
+        if (watermarks.length == 0) {
+            throw new IllegalArgumentException("At least one watermark is required.");
+        }
+        for (int i = 0; i < watermarks.length; i++) {
+            if (!(watermarks[i] > 0 && watermarks[i] <= 1) || (i > 0 && watermarks[i] <= watermarks[i - 1])) {
+                throw new IllegalArgumentException("Watermarks must be strictly ascending in (0, 1]: " + Arrays.toString(watermarks));
+            }
+        }
+        this.watermarks = watermarks.clone();
+    }
+
+    /**
+     * Registers a listener and immediately passes it the budget scale of the current level.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(Listener listener) {
+        synchronized (notificationLock) {
+            listeners.add(listener);
+            listener.onBudgetScaleChanged(getBudgetScale());
+        }
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts monitoring the old generation. If the JVM exposes no suitable memory pool, a message is logged and
+     * the budget scale stays at 1.
+     */
+    public synchronized void start() {
+        if (oldGen != null) {
+            return;
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            // The tenured pool is the heap pool that supports usage thresholds (eden and survivor spaces do not).
+            if (pool.getType() == MemoryType.HEAP && pool.isValid() && pool.isUsageThresholdSupported()) {
+                oldGen = pool;
+                break;
+            }
+        }
+        if (oldGen == null) {
+            System.err.println("MemoryPressureMonitor: No tenured heap pool found; caches keep their full budget.");
+            return;
+        }
+        collectionThresholds = oldGen.isCollectionUsageThresholdSupported();
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(thresholdListener, null, null);
+        evaluate();
+        checkThread = Thread.ofVirtual().name("memory-pressure-check").start(this::checkLoop);
+        System.out.println("MemoryPressureMonitor: Watching '" + oldGen.getName() + "' with watermarks " + Arrays.toString(watermarks) + ".");
+    }
+
+    /**
+     * Stops monitoring. Listeners are kept, but no longer called.
+     */
+    public synchronized void stop() {
+        if (oldGen == null) {
+            return;
+        }
+        try {
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(thresholdListener);
+        } catch (javax.management.ListenerNotFoundException e) {
+            // Not registered: nothing to remove.
+        }
+        oldGen = null;
+        if (checkThread != null) {
+            checkThread.interrupt();
+            checkThread = null;
+        }
+    }
+
+    /** @return The current pressure level: the number of watermarks exceeded, 0 when memory is plentiful. */
+    public synchronized int getLevel() {
+        return level;
+    }
+
+    /** @return The budget scale of the current level, see {@link Listener#onBudgetScaleChanged(double)}. */
+    public synchronized double getBudgetScale() {
+        return budgetScaleFor(level);
+    }
+
+    // --- Internal ---
+
+    private void onNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)
+                || MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)) {
+            evaluate();
+        }
+    }
+
+    private void checkLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+                evaluate();
+            }
+        } catch (InterruptedException e) {
+            // Stopped.
+        }
+    }
+
+    /** Recomputes the level from the current occupancy, re-arms the threshold and notifies listeners of a change. */
+    private void evaluate() {
+        synchronized (this) {
+            if (oldGen == null) {
+                return;
+            }
+            long max = maxBytes(oldGen);
+            MemoryUsage usage = collectionThresholds ? oldGen.getCollectionUsage() : oldGen.getUsage();
+            double occupancy = (usage != null && max > 0) ? (double) usage.getUsed() / max : 0.0;
+
+            int previousLevel = level;
+            while (level < watermarks.length && occupancy >= watermarks[level]) {
+                level++; // Rising: each exceeded watermark adds a level
+            }
+            while (level > 0 && occupancy < watermarks[level - 1] - HYSTERESIS) {
+                level--; // Falling: drop a level only well below its watermark
+            }
+            armThreshold(max);
+            if (level == previousLevel) {
+                return;
+            }
+            System.out.println("MemoryPressureMonitor: Old generation at " + Math.round(occupancy * 100) + "% (level "
+                               + level + "); cache budgets scaled to " + Math.round(budgetScaleFor(level) * 100) + "%.");
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Passes the current scale to the listeners if it differs from the last one passed. Listeners are called
+     * outside the monitor's lock (they take their own locks), but one notification at a time, and the scale is
+     * read inside the notification lock, so the last notification always carries the current scale.
+     */
+    private void notifyListeners() {
+        synchronized (notificationLock) {
+            double scale = getBudgetScale();
+            if (scale == notifiedScale) {
+                return; // Already delivered by a concurrent notification
+            }
+            notifiedScale = scale;
+            for (Listener listener : listeners) {
+                listener.onBudgetScaleChanged(scale);
+            }
+        }
+    }
+
+    /** Sets the pool's threshold to the next watermark above the current level (0 disables it at the top level). */
+    private void armThreshold(long max) {
+        long threshold = (level < watermarks.length && max > 0) ? (long) (watermarks[level] * max) : 0;
+        if (collectionThresholds) {
+            oldGen.setCollectionUsageThreshold(threshold);
+        } else {
+            oldGen.setUsageThreshold(threshold);
+        }
+    }
+
+    private double budgetScaleFor(int pressureLevel) {
+        return (pressureLevel >= watermarks.length) ? 0.0 : 1.0 / (1L << pressureLevel);
+    }
+
+    /** @return The maximum size of the pool, or of the heap if the pool does not define one. */
+    private static long maxBytes(MemoryPoolMXBean pool) {
+        long max = pool.getUsage().getMax();
+        return (max > 0) ? max : Runtime.getRuntime().maxMemory();
+    }
+}
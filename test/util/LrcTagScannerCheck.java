@@ -0,0 +1,235 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Differential check of {@link LrcTagScanner} against the regular expressions it replaced in {@link LrcParser}.
+ * Every input line is trimmed, as the parser does, and classified twice: once by the former regex logic (kept
+ * below as the reference) and once by the scanner, both on the {@link String} and on its UTF-8 bytes. A line is
+ * either a metadata tag (key and raw value), a timed line (valid timestamps and where its text starts) or neither.
+ * <p>
+ * The inputs are a list of edge cases (two- and three-digit fractions, seconds of 60 or more, upper-case keys,
+ * U+2028 and U+0085 inside and after tags, stacked time tags) followed by random lines built from tag fragments.
+ * Run it with {@code src} and {@code test} compiled together:
+ * {@code java -cp <classes> util.LrcTagScannerCheck [randomLineCount]}.
+ * It prints each difference and exits with status 1 if there is any.
+ * Supports SRS FR3.1 and FR3.2 (Parse LRC files, timestamps and text).
+ */
+public final class LrcTagScannerCheck {
+
+    private static final int DEFAULT_RANDOM_LINES = 1_000_000;
+    private static final int MAX_REPORTED_DIFFERENCES = 20;
+    private static final long RANDOM_SEED = 20_260_415L;
+
+    // Keys in the order of the LrcTagScanner.TAG_* identifiers.
+    private static final String[] TAG_KEYS = {"ti", "ar", "al", "length", "genre", "offset"};
+
+    private static final String[] EDGE_CASES = {
+            // Fractions: two digits are centiseconds, three are milliseconds; others are no time tag
+            "[00:01.23]two digits", "[00:01.234]three digits", "[00:01:23]colon separator", "[00:01.2]one digit",
+            "[00:01.2345]four digits", "[0:01.23]short minutes", "[000:01.23]long minutes",
+            // Seconds of 60 or more are skipped; the text starts after the last valid tag
+            "[00:60.00]sixty", "[00:59.99]fifty-nine", "[00:61.00][00:01.00]invalid first", "[00:01.00][00:75.00]invalid last",
+            "[99:59.999]maximum", "[00:99.99]",
+            // Upper- and mixed-case keys
+            "[TI:Upper]", "[Ti:Mixed]", "[AR:Artist]", "[AL:Album]", "[LENGTH:03:20]", "[Genre:Pop]",
+            "[OFFSET:+500]", "[Offset:-250]", "[offset:]",
+            // Line terminators that survive readLine(), inside and after tags
+            "[ti:a\u2028b]", "[ti:a\u0085b]", "[ti:a\u2029b]", "[ti:ab]\u2028", "[ti:ab]\u0085", "[ar:\u0085]",
+            "[offset:\u2028100]", "[offset:100]\u2028", "[00:01.00]text\u2028more", "[00:01.00]\u0085",
+            "\u2028[00:01.00]leading", "[00:01.00\u2028]",
+            // Stacked and nested time tags
+            "[00:01.00][00:02.00][00:03.00]chorus", "[00:01.00] [00:02.00]space between", "[00:01.00]text[00:02.00]tail",
+            "[[00:01.00]]", "[00:01.00[00:02.00]", "[00:01.00]]text", "[00:01.00][ti:x]", "[ti:[00:01.00]]",
+            "[00:01.00]<00:01.50>word <00:02.00>tags",
+            // Near misses of metadata tags
+            "[ti:]", "[ti:a]b]", "[tix:a]", "[ti a]", "[ti:a", "ti:a]", "[]", "[:]", "[t:a]", "[ti::]", "[ti:a] x",
+            "[length:]", "[gen:x]", "[ offset:1]",
+            // Digits outside ASCII do not form time tags
+            "[\u0660\u0660:\u0660\u0661.\u0660\u0660]arabic-indic", "[\uFF10\uFF10:01.00]fullwidth", "[00:01.00]caf\u00E9 \u4E2D\u6587",
+            "", " ", "plain text",
+    };
+
+    // Fragments for random lines, biased towards tag syntax.
+    private static final String[] FRAGMENTS = {
+            "[", "]", ":", ".", "00", "01", "59", "60", "99", "5", "123", "4567", "ti", "TI", "ar", "Al", "length",
+            "genre", "OFFSET", "offset", "x", " ", "\t", "\u2028", "\u0085", "\u2029", "\u00E9", "\u4E2D", "<", ">",
+            "[00:01.00]", "[12:34.567]", "[00:60.00]", "[ti:", "[offset:", "+", "-",
+    };
+
+    private LrcTagScannerCheck() {
+        // Not instantiated; run main
+    }
+
+    public static void main(String[] args) {
+        int randomLines = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_RANDOM_LINES;
+        LrcTagScanner scanner = new LrcTagScanner();
+        List<String> differences = new ArrayList<>();
+        int checked = 0;
+
+        for (String line : EDGE_CASES) {
+            check(line, scanner, differences);
+            checked++;
+        }
+        Random random = new Random(RANDOM_SEED);
+        StringBuilder builder = new StringBuilder();
+        for (int n = 0; n < randomLines; n++) {
+            builder.setLength(0);
+            for (int parts = random.nextInt(8); parts > 0; parts--) {
+                builder.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            check(builder.toString(), scanner, differences);
+            checked++;
+        }
+
+        for (int i = 0; i < Math.min(differences.size(), MAX_REPORTED_DIFFERENCES); i++) {
+            System.out.println(differences.get(i));
+        }
+        System.out.println("LrcTagScannerCheck: " + checked + " lines, " + differences.size() + " differences.");
+        if (!differences.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(String rawLine, LrcTagScanner scanner, List<String> differences) {
+        String line = rawLine.trim();
+        String expected = RegexReference.classify(line);
+        String fromChars = classifyChars(line, scanner);
+        String fromBytes = classifyBytes(line, scanner);
+        if (!expected.equals(fromChars) || !expected.equals(fromBytes)) {
+            differences.add("Line \"" + escape(line) + "\": regex " + escape(expected)
+                            + ", scanner " + escape(fromChars) + ", byte scanner " + escape(fromBytes));
+        }
+    }
+
+    // --- Scanner ---
+
+    private static String classifyChars(String line, LrcTagScanner scanner) {
+        if (line.isEmpty()) {
+            return "none";
+        }
+        int tag = scanner.scanMetadataTag(line);
+        if (tag != LrcTagScanner.TAG_NONE) {
+            return meta(TAG_KEYS[tag], line.substring(scanner.valueStart(), scanner.valueEnd()));
+        }
+        int count = scanner.scanTimeTags(line);
+        return timed(timestamps(scanner, count), scanner.textStart());
+    }
+
+    private static String classifyBytes(String line, LrcTagScanner scanner) {
+        if (line.isEmpty()) {
+            return "none";
+        }
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        int tag = scanner.scanMetadataTag(buf, 0, bytes.length);
+        if (tag != LrcTagScanner.TAG_NONE) {
+            int start = scanner.valueStart();
+            return meta(TAG_KEYS[tag], new String(bytes, start, scanner.valueEnd() - start, StandardCharsets.UTF_8));
+        }
+        int count = scanner.scanTimeTags(buf, 0, bytes.length);
+        // Byte positions are turned into char positions, so both scans report the same text start.
+        return timed(timestamps(scanner, count), new String(bytes, 0, scanner.textStart(), StandardCharsets.UTF_8).length());
+    }
+
+    private static List<Long> timestamps(LrcTagScanner scanner, int count) {
+        List<Long> timestamps = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            timestamps.add(scanner.timestampAt(i));
+        }
+        return timestamps;
+    }
+
+    // --- Results ---
+
+    private static String meta(String key, String value) {
+        return "meta " + key + " \"" + value + "\"";
+    }
+
+    private static String timed(List<Long> timestamps, int textStart) {
+        return timestamps.isEmpty() ? "none" : "timed " + timestamps + " text at " + textStart;
+    }
+
+    private static String escape(String s) {
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x20 || c >= 0x7F) {
+                escaped.append(String.format("\\u%04X", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * The per-line logic of {@link LrcParser} before {@link LrcTagScanner} replaced it, kept as the reference:
+     * whole-line metadata tags first, then time tags found left to right, where tags with seconds of 60 or more
+     * are skipped and the text starts after the last valid tag.
+     */
+    private static final class RegexReference {
+
+        // Regex for timed lyric lines: [mm:ss.xx] or [mm:ss.xxx]
+        // Group 1: minutes, Group 2: seconds, Group 3: centiseconds or milliseconds
+        private static final Pattern TIME_TAG_PATTERN = Pattern.compile(
+                "\\[(\\d{2}):(\\d{2})[.:](\\d{2,3})\\]");
+
+        // Regex for standard metadata tags: [key:value]
+        // Group 1: key (e.g., "ti", "ar", "al", "length", "genre", "offset")
+        // Group 2: value
+        private static final Pattern METADATA_TAG_PATTERN = Pattern.compile(
+                "^\\[(ti|ar|al|length|genre|offset):(.*)\\]\\s*$", Pattern.CASE_INSENSITIVE);
+
+        // Regex for the offset tag alone, as matched by the original lyrics-and-offset parse
+        private static final Pattern LYRIC_OFFSET_TAG_PATTERN = Pattern.compile(
+                "^\\[offset:(.*)\\]\\s*$", Pattern.CASE_INSENSITIVE);
+
+        private static String classify(String line) {
+            if (line.isEmpty()) {
+                return "none";
+            }
+            Matcher metadataMatcher = METADATA_TAG_PATTERN.matcher(line);
+            if (metadataMatcher.matches()) {
+                String result = meta(metadataMatcher.group(1).toLowerCase(), metadataMatcher.group(2));
+                Matcher offsetMatcher = LYRIC_OFFSET_TAG_PATTERN.matcher(line);
+                if (offsetMatcher.matches() && !result.equals(meta("offset", offsetMatcher.group(1)))) {
+                    return "inconsistent offset patterns"; // Never expected: both patterns must agree
+                }
+                return result;
+            }
+
+            Matcher timeMatcher = TIME_TAG_PATTERN.matcher(line);
+            List<Long> timestamps = new ArrayList<>();
+            int lastTagEnd = 0;
+            while (timeMatcher.find()) {
+                Long parsedMillis = parseLrcTimestamp(timeMatcher);
+                if (parsedMillis != null) {
+                    timestamps.add(parsedMillis);
+                    lastTagEnd = timeMatcher.end();
+                }
+            }
+            return timed(timestamps, lastTagEnd);
+        }
+
+        private static Long parseLrcTimestamp(Matcher matcher) {
+            long minutes = Long.parseLong(matcher.group(1));
+            long seconds = Long.parseLong(matcher.group(2));
+            String fracSecStr = matcher.group(3); // Milliseconds or centiseconds part
+            long fracSeconds = Long.parseLong(fracSecStr);
+            if (fracSecStr.length() == 2) { // Input is in centiseconds
+                fracSeconds *= 10; // Convert centiseconds to milliseconds
+            }
+            if (minutes < 0 || seconds < 0 || seconds >= 60 || fracSeconds < 0 || fracSeconds >= 1000) {
+                return null;
+            }
+            return (minutes * 60 + seconds) * 1000 + fracSeconds;
+        }
+    }
+}